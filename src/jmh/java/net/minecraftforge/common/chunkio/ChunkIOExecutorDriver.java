@@ -0,0 +1,72 @@
+package net.minecraftforge.common.chunkio;
+
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.storage.AnvilChunkLoader;
+import net.minecraft.world.chunk.storage.RegionFileCache;
+import net.minecraft.world.gen.ChunkProviderServer;
+import org.spongepowered.server.benchmark.BenchmarkWorlds;
+import org.spongepowered.server.benchmark.SyntheticRegions;
+import org.spongepowered.server.mixin.chunkio.ChunkProviderServerAccessor_Vanilla;
+import org.spongepowered.server.world.chunkio.MappedRegionFileCache;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+
+/**
+ * Queues asynchronous loads for all generated chunks using
+ * {@link ChunkIOExecutor#queueChunkLoad} and ticks the executor until all
+ * callbacks have run, measuring the full round trip of a batch of loads.
+ */
+public final class ChunkIOExecutorDriver implements Callable<Object>, AutoCloseable
+{
+    private final ChunkProviderServer provider;
+    private final World world;
+    private final AnvilChunkLoader loader;
+    private final int size;
+
+    private int loaded;
+    private final Consumer<Chunk> callback = chunk -> this.loaded++; // Only called on the benchmark thread
+
+    public ChunkIOExecutorDriver(Path dir, Map<String, Object> parameters) throws Exception
+    {
+        this.size = (Integer) parameters.get("size");
+        SyntheticRegions.generate(dir.toFile(), this.size, (Integer) parameters.get("entities"), (Integer) parameters.get("tileEntities"));
+        this.provider = BenchmarkWorlds.createProvider(dir.toFile());
+        this.world = ((ChunkProviderServerAccessor_Vanilla) this.provider).chunkIOAccessor$getWorld();
+        this.loader = (AnvilChunkLoader) this.provider.chunkLoader;
+    }
+
+    @Override
+    public Object call()
+    {
+        ((ChunkProviderServerAccessor_Vanilla) this.provider).chunkIOAccessor$getLoadedChunks().clear();
+
+        int total = this.size * this.size;
+        this.loaded = 0;
+        for (int x = 0; x < this.size; x++)
+        {
+            for (int z = 0; z < this.size; z++)
+            {
+                ChunkIOExecutor.queueChunkLoad(this.world, this.loader, this.provider, x, z, this.callback);
+            }
+        }
+
+        while (this.loaded < total)
+        {
+            ChunkIOExecutor.tick();
+            Thread.yield();
+        }
+
+        return this.loaded;
+    }
+
+    @Override
+    public void close()
+    {
+        RegionFileCache.clearRegionFileReferences();
+        MappedRegionFileCache.clear();
+    }
+}
@@ -0,0 +1,74 @@
+package net.minecraftforge.common.chunkio;
+
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.storage.AnvilChunkLoader;
+import net.minecraft.world.chunk.storage.RegionFileCache;
+import net.minecraft.world.gen.ChunkProviderServer;
+import org.spongepowered.server.benchmark.BenchmarkWorlds;
+import org.spongepowered.server.benchmark.SyntheticRegions;
+import org.spongepowered.server.mixin.chunkio.ChunkProviderServerAccessor_Vanilla;
+import org.spongepowered.server.world.chunkio.MappedRegionFileCache;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * Measures {@link ChunkIOProvider#syncCallback()}, the part of a chunk load
+ * that runs on the main thread. The chunks are read and processed
+ * beforehand in {@link #run()}, which should be invoked before each
+ * benchmark invocation.
+ */
+public final class SyncCallbackDriver implements Callable<Object>, Runnable, AutoCloseable
+{
+    private final ChunkProviderServer provider;
+    private final World world;
+    private final AnvilChunkLoader loader;
+    private final int size;
+    private final ChunkIOProvider[] tasks;
+
+    public SyncCallbackDriver(Path dir, Map<String, Object> parameters) throws Exception
+    {
+        this.size = (Integer) parameters.get("size");
+        SyntheticRegions.generate(dir.toFile(), this.size, (Integer) parameters.get("entities"), (Integer) parameters.get("tileEntities"));
+        this.provider = BenchmarkWorlds.createProvider(dir.toFile());
+        this.world = ((ChunkProviderServerAccessor_Vanilla) this.provider).chunkIOAccessor$getWorld();
+        this.loader = (AnvilChunkLoader) this.provider.chunkLoader;
+        this.tasks = new ChunkIOProvider[this.size * this.size];
+    }
+
+    // Prepare the next invocation
+    @Override
+    public void run()
+    {
+        ((ChunkProviderServerAccessor_Vanilla) this.provider).chunkIOAccessor$getLoadedChunks().clear();
+
+        for (int i = 0; i < this.tasks.length; i++)
+        {
+            ChunkIOProvider task = new ChunkIOProvider(new QueuedChunk(i / this.size, i % this.size, this.world), this.loader, this.provider);
+            task.load();
+            this.tasks[i] = task;
+        }
+
+        // The tasks aren't registered in the executor, so this only discards them from its finished queue
+        ChunkIOExecutor.tick();
+    }
+
+    @Override
+    public Object call()
+    {
+        for (ChunkIOProvider task : this.tasks)
+        {
+            task.syncCallback();
+        }
+
+        return this.tasks[this.tasks.length - 1].getChunk();
+    }
+
+    @Override
+    public void close()
+    {
+        RegionFileCache.clearRegionFileReferences();
+        MappedRegionFileCache.clear();
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.server.benchmark;
+
+import net.minecraft.launchwrapper.Launch;
+
+import java.lang.reflect.Constructor;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Starts LaunchWrapper with the Mixin environment used by the tests, so the
+ * benchmarked code runs with all mixins applied.
+ *
+ * <p>Benchmark drivers are loaded by the {@link Launch#classLoader}, so they
+ * are only accessed through interfaces from {@code java.*}, which are shared
+ * between both class loaders.</p>
+ */
+public final class BenchmarkLauncher {
+
+    private static final String TWEAKER = "org.spongepowered.server.launch.TestTweaker";
+
+    private static boolean launched;
+
+    private BenchmarkLauncher() {
+    }
+
+    /**
+     * Creates a benchmark driver in the launch class loader.
+     *
+     * @param driverClass The name of the driver class, needs a constructor
+     *     accepting a {@link Path} and a {@link Map} of parameters
+     * @param directory The directory to create the benchmark world in
+     * @param parameters The benchmark parameters
+     * @return The driver instance
+     * @throws Exception If the driver can't be created
+     */
+    public static synchronized Object createDriver(String driverClass, Path directory, Map<String, Object> parameters) throws Exception {
+        if (!launched) {
+            Launch.main(new String[] {"--tweakClass", TWEAKER});
+            launched = true;
+        }
+
+        Constructor<?> constructor = Class.forName(driverClass, true, Launch.classLoader).getConstructor(Path.class, Map.class);
+        return constructor.newInstance(directory, parameters);
+    }
+
+}
@@ -0,0 +1,136 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.server.benchmark;
+
+import static org.mockito.Mockito.RETURNS_DEFAULTS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+import net.minecraft.entity.player.EnumCreatureType;
+import net.minecraft.util.datafix.DataFixesManager;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.DimensionType;
+import net.minecraft.world.World;
+import net.minecraft.world.WorldServer;
+import net.minecraft.world.biome.Biome;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.storage.AnvilChunkLoader;
+import net.minecraft.world.gen.ChunkProviderServer;
+import net.minecraft.world.gen.IChunkGenerator;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import javax.annotation.Nullable;
+
+/**
+ * Creates a chunk provider for the benchmarks without starting a server.
+ *
+ * <p>The {@link WorldServer} is a mock that only has the fields set up that
+ * are accessed while loading chunks. Chunks are never generated, only loaded
+ * from the (synthetic) region files in the world directory.</p>
+ */
+public final class BenchmarkWorlds {
+
+    private BenchmarkWorlds() {
+    }
+
+    public static ChunkProviderServer createProvider(File dir) throws ReflectiveOperationException {
+        WorldServer world = createWorld();
+        AnvilChunkLoader loader = new AnvilChunkLoader(dir, DataFixesManager.createFixer());
+        return new ChunkProviderServer(world, loader, new EmptyChunkGenerator(world));
+    }
+
+    /**
+     * Creates a mocked world with the fields accessed by chunks and entities.
+     * The mock doesn't record invocations, so it can be used for a long time.
+     *
+     * @return The mocked world
+     */
+    public static WorldServer createWorld() throws ReflectiveOperationException {
+        WorldServer world = mock(WorldServer.class, withSettings().defaultAnswer(RETURNS_DEFAULTS).stubOnly());
+        setField(World.class, world, "provider", DimensionType.OVERWORLD.createDimension());
+        setField(World.class, world, "playerEntities", new ArrayList<>());
+        setField(World.class, world, "loadedEntityList", new ArrayList<>());
+        setField(World.class, world, "loadedTileEntityList", new ArrayList<>());
+        setField(World.class, world, "rand", new Random());
+        return world;
+    }
+
+    static void setField(Class<?> owner, Object instance, String name, Object value) throws ReflectiveOperationException {
+        Field field = owner.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(instance, value);
+    }
+
+    private static final class EmptyChunkGenerator implements IChunkGenerator {
+
+        private final World world;
+
+        EmptyChunkGenerator(World world) {
+            this.world = world;
+        }
+
+        @Override
+        public Chunk generateChunk(int x, int z) {
+            return new Chunk(this.world, x, z);
+        }
+
+        @Override
+        public void populate(int x, int z) {
+        }
+
+        @Override
+        public boolean generateStructures(Chunk chunkIn, int x, int z) {
+            return false;
+        }
+
+        @Override
+        public List<Biome.SpawnListEntry> getPossibleCreatures(EnumCreatureType creatureType, BlockPos pos) {
+            return Collections.emptyList();
+        }
+
+        @Nullable
+        @Override
+        public BlockPos getNearestStructurePos(World worldIn, String structureName, BlockPos position, boolean findUnexplored) {
+            return null;
+        }
+
+        @Override
+        public void recreateStructures(Chunk chunkIn, int x, int z) {
+        }
+
+        @Override
+        public boolean isInsideStructure(World worldIn, String structureName, BlockPos pos) {
+            return false;
+        }
+
+    }
+
+}
@@ -0,0 +1,189 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.server.benchmark;
+
+import com.google.common.collect.ImmutableMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Benchmarks for the asynchronous chunk loading path, run against region
+ * files with generated chunks.
+ *
+ * <p>Run with {@code ./gradlew jmh}. A subset of the benchmarks can be
+ * selected with {@code -PjmhInclude=<regex>}. The chunk I/O settings (see
+ * {@code ChunkIOSettings}) are read once per fork, so they can be changed
+ * with {@code -PjmhJvmArgs=-Dsponge.chunkio.mmap-regions=true}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChunkIOBenchmark {
+
+    /**
+     * The number of chunks per side of the generated square.
+     */
+    @Param("16")
+    public int size;
+
+    /**
+     * The number of entities in each chunk.
+     */
+    @Param({"0", "16"})
+    public int entities;
+
+    /**
+     * The number of tile entities in each chunk.
+     */
+    @Param({"0", "16"})
+    public int tileEntities;
+
+    private Path dir;
+
+    @Setup(Level.Trial)
+    public void createDirectory() throws IOException {
+        this.dir = Files.createTempDirectory("chunkio-benchmark");
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> paths = Files.walk(this.dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    Object createDriver(String driverClass) throws Exception {
+        return BenchmarkLauncher.createDriver(driverClass, this.dir, ImmutableMap.of(
+                "size", this.size,
+                "entities", this.entities,
+                "tileEntities", this.tileEntities));
+    }
+
+    @State(Scope.Thread)
+    public static class Read {
+
+        Callable<?> driver;
+
+        @Setup(Level.Trial)
+        public void setup(ChunkIOBenchmark benchmark) throws Exception {
+            this.driver = (Callable<?>) benchmark.createDriver("org.spongepowered.server.benchmark.ChunkReadDriver");
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws Exception {
+            ((AutoCloseable) this.driver).close();
+        }
+
+    }
+
+    @State(Scope.Thread)
+    public static class QueueAndTick {
+
+        Callable<?> driver;
+
+        @Setup(Level.Trial)
+        public void setup(ChunkIOBenchmark benchmark) throws Exception {
+            this.driver = (Callable<?>) benchmark.createDriver("net.minecraftforge.common.chunkio.ChunkIOExecutorDriver");
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws Exception {
+            ((AutoCloseable) this.driver).close();
+        }
+
+    }
+
+    @State(Scope.Thread)
+    public static class SyncCallback {
+
+        Callable<?> driver;
+
+        @Setup(Level.Trial)
+        public void setup(ChunkIOBenchmark benchmark) throws Exception {
+            this.driver = (Callable<?>) benchmark.createDriver("net.minecraftforge.common.chunkio.SyncCallbackDriver");
+        }
+
+        // Reading the chunks is much slower than the callbacks, so it's worth the per-invocation overhead
+        @Setup(Level.Invocation)
+        public void prepare() {
+            ((Runnable) this.driver).run();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws Exception {
+            ((AutoCloseable) this.driver).close();
+        }
+
+    }
+
+    /**
+     * Reads and decodes a single chunk.
+     */
+    @Benchmark
+    public Object read(Read state) throws Exception {
+        return state.driver.call();
+    }
+
+    /**
+     * Loads all chunks through the executor, including the main thread
+     * finalization. Each operation loads {@code size * size} chunks.
+     */
+    @Benchmark
+    public Object queueAndTick(QueueAndTick state) throws Exception {
+        return state.driver.call();
+    }
+
+    /**
+     * Runs the main thread callbacks for {@code size * size} prepared
+     * chunks.
+     */
+    @Benchmark
+    public Object syncCallback(SyncCallback state) throws Exception {
+        return state.driver.call();
+    }
+
+}
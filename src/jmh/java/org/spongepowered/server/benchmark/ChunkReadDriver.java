@@ -0,0 +1,66 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.server.benchmark;
+
+import net.minecraft.util.datafix.DataFixesManager;
+import net.minecraft.world.chunk.storage.AnvilChunkLoader;
+import net.minecraft.world.chunk.storage.RegionFileCache;
+import org.spongepowered.server.world.chunkio.AsyncAnvilChunkLoader;
+import org.spongepowered.server.world.chunkio.MappedRegionFileCache;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * Reads and decodes chunks from the region files using
+ * {@link AsyncAnvilChunkLoader#read(AnvilChunkLoader, int, int)}, cycling
+ * through all generated chunks.
+ */
+public final class ChunkReadDriver implements Callable<Object>, AutoCloseable {
+
+    private final AnvilChunkLoader loader;
+    private final int size;
+    private int next;
+
+    public ChunkReadDriver(Path dir, Map<String, Object> parameters) throws Exception {
+        this.size = (Integer) parameters.get("size");
+        SyntheticRegions.generate(dir.toFile(), this.size, (Integer) parameters.get("entities"), (Integer) parameters.get("tileEntities"));
+        this.loader = new AnvilChunkLoader(dir.toFile(), DataFixesManager.createFixer());
+    }
+
+    @Override
+    public Object call() throws Exception {
+        int index = this.next++ % (this.size * this.size);
+        return AsyncAnvilChunkLoader.read(this.loader, index / this.size, index % this.size);
+    }
+
+    @Override
+    public void close() {
+        RegionFileCache.clearRegionFileReferences();
+        MappedRegionFileCache.clear();
+    }
+
+}
@@ -0,0 +1,102 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.server.benchmark;
+
+import com.google.common.collect.ImmutableMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the serial entity tracker with {@link
+ * org.spongepowered.server.tick.ParallelEntityTracker}.
+ *
+ * <p>Run with {@code ./gradlew jmh -PjmhInclude=EntityTrackerBenchmark}. The
+ * number of threads and the task size (see {@code TickSettings}) can be
+ * changed with {@code -PjmhJvmArgs=-Dsponge.tick.tracker-threads=4}.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EntityTrackerBenchmark {
+
+    /**
+     * The number of tracked entities.
+     */
+    @Param({"1000", "5000"})
+    public int entities;
+
+    /**
+     * The number of players in the world.
+     */
+    @Param({"10", "50"})
+    public int players;
+
+    /**
+     * Whether the entities are updated in parallel.
+     */
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    private Callable<?> driver;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        this.driver = (Callable<?>) BenchmarkLauncher.createDriver("org.spongepowered.server.benchmark.EntityTrackerDriver", null, ImmutableMap.of(
+                "entities", this.entities,
+                "players", this.players,
+                "parallel", this.parallel));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        ((AutoCloseable) this.driver).close();
+    }
+
+    /**
+     * Moves all entities and ticks the tracker once.
+     */
+    @Benchmark
+    public Object tick() throws Exception {
+        return this.driver.call();
+    }
+
+}
@@ -0,0 +1,137 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.server.benchmark;
+
+import static org.mockito.Mockito.RETURNS_DEFAULTS;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.EntityTracker;
+import net.minecraft.entity.EntityTrackerEntry;
+import net.minecraft.entity.passive.EntityPig;
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.network.NetHandlerPlayServer;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.management.PlayerChunkMap;
+import net.minecraft.server.management.PlayerList;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.world.WorldServer;
+import org.spongepowered.server.tick.ParallelEntityTracker;
+
+import java.lang.reflect.Field;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+/**
+ * Moves all tracked entities and ticks the entity tracker, either serially
+ * with {@link EntityTracker#tick()} or with {@link ParallelEntityTracker}.
+ *
+ * <p>The players are mocks watching all chunks, and their connections
+ * discard the packets, so only computing the updates and creating the
+ * packets is measured.</p>
+ */
+public final class EntityTrackerDriver implements Callable<Object>, AutoCloseable {
+
+    private static final int AREA = 256; // The entities and players are spread over AREA x AREA blocks
+
+    private final EntityTracker tracker;
+    private final Set<EntityTrackerEntry> entries;
+    private final WorldServer world;
+    private final List<Entity> entities = new ArrayList<>();
+    private final boolean parallel;
+    private final Random random = new Random(0);
+
+    @SuppressWarnings("unchecked")
+    public EntityTrackerDriver(Path dir, Map<String, Object> parameters) throws Exception {
+        this.parallel = (Boolean) parameters.get("parallel");
+        this.world = BenchmarkWorlds.createWorld();
+
+        MinecraftServer server = mock(MinecraftServer.class, withSettings().defaultAnswer(RETURNS_DEFAULTS).stubOnly());
+        PlayerList playerList = mock(PlayerList.class, withSettings().defaultAnswer(RETURNS_DEFAULTS).stubOnly());
+        PlayerChunkMap playerChunkMap = mock(PlayerChunkMap.class, withSettings().defaultAnswer(RETURNS_DEFAULTS).stubOnly());
+        when(this.world.getMinecraftServer()).thenReturn(server);
+        when(server.getPlayerList()).thenReturn(playerList);
+        when(playerList.getEntityViewDistance()).thenReturn(10 * 16 - 16);
+        when(this.world.getPlayerChunkMap()).thenReturn(playerChunkMap);
+        when(playerChunkMap.isPlayerWatchingChunk(any(), anyInt(), anyInt())).thenReturn(true);
+
+        int players = (Integer) parameters.get("players");
+        for (int i = 0; i < players; i++) {
+            EntityPlayerMP player = mock(EntityPlayerMP.class, withSettings().defaultAnswer(RETURNS_DEFAULTS).stubOnly());
+            player.connection = mock(NetHandlerPlayServer.class, withSettings().defaultAnswer(RETURNS_DEFAULTS).stubOnly());
+            player.posX = this.random.nextInt(AREA);
+            player.posY = 64;
+            player.posZ = this.random.nextInt(AREA);
+            when(player.getServerWorld()).thenReturn(this.world);
+            this.world.playerEntities.add(player);
+        }
+
+        this.tracker = new EntityTracker(this.world);
+        int entities = (Integer) parameters.get("entities");
+        for (int i = 0; i < entities; i++) {
+            EntityPig pig = new EntityPig(this.world);
+            pig.setPosition(this.random.nextInt(AREA), 64, this.random.nextInt(AREA));
+            pig.chunkCoordX = MathHelper.floor(pig.posX) >> 4;
+            pig.chunkCoordZ = MathHelper.floor(pig.posZ) >> 4;
+            this.tracker.track(pig);
+            this.entities.add(pig);
+        }
+
+        Field field = EntityTracker.class.getDeclaredField("entries");
+        field.setAccessible(true);
+        this.entries = (Set<EntityTrackerEntry>) field.get(this.tracker);
+    }
+
+    @Override
+    public Object call() {
+        for (Entity entity : this.entities) {
+            entity.posX = MathHelper.clamp(entity.posX + this.random.nextDouble() - 0.5, 0, AREA);
+            entity.posZ = MathHelper.clamp(entity.posZ + this.random.nextDouble() - 0.5, 0, AREA);
+            entity.rotationYaw = this.random.nextFloat() * 360;
+        }
+
+        if (!this.parallel || !ParallelEntityTracker.tick(this.entries, this.world.playerEntities)) {
+            this.tracker.tick();
+        }
+        return this.tracker;
+    }
+
+    @Override
+    public void close() {
+        for (Entity entity : this.entities) {
+            this.tracker.untrack(entity);
+        }
+    }
+
+}
@@ -0,0 +1,125 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.server.benchmark;
+
+import net.minecraft.nbt.CompressedStreamTools;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.spongepowered.server.world.chunkio.RegionCodec;
+import org.spongepowered.server.world.chunkio.RegionCodecs;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the {@link RegionCodec}s on serialized chunks. The compressed
+ * size of each codec is printed when the benchmark is set up.
+ *
+ * <p>The codecs don't depend on the mixins, so unlike the
+ * {@link ChunkIOBenchmark} this runs without starting LaunchWrapper.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RegionCodecBenchmark {
+
+    @Param({"zlib", "gzip", "lz4", "none"})
+    public String codec;
+
+    /**
+     * The number of entities in the chunk.
+     */
+    @Param({"0", "16"})
+    public int entities;
+
+    private RegionCodec regionCodec;
+    private byte[] data;
+    private byte[] compressed;
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+    private final byte[] buffer = new byte[8192];
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        this.regionCodec = RegionCodecs.get(this.codec).orElseThrow(() -> new IllegalArgumentException("Unknown codec: " + this.codec));
+
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(data)) {
+            CompressedStreamTools.write(SyntheticRegions.createChunk(new Random(this.entities), 0, 0, this.entities, this.entities), out);
+        }
+        this.data = data.toByteArray();
+
+        encode();
+        this.compressed = this.out.toByteArray();
+        System.out.printf("%n%s: %d -> %d bytes (%.1f%%)%n", this.codec, this.data.length, this.compressed.length,
+                this.compressed.length * 100.0 / this.data.length);
+    }
+
+    /**
+     * Compresses a single chunk.
+     */
+    @Benchmark
+    public int encode() throws IOException {
+        this.out.reset();
+        try (OutputStream out = this.regionCodec.compress(this.out)) {
+            out.write(this.data);
+        }
+        return this.out.size();
+    }
+
+    /**
+     * Decompresses a single chunk.
+     */
+    @Benchmark
+    public int decode() throws IOException {
+        int length = 0;
+        try (InputStream in = this.regionCodec.decompress(new ByteArrayInputStream(this.compressed))) {
+            int read;
+            while ((read = in.read(this.buffer)) != -1) {
+                length += read;
+            }
+        }
+        return length;
+    }
+
+}
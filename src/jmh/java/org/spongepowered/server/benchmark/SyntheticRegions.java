@@ -0,0 +1,144 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.server.benchmark;
+
+import net.minecraft.nbt.CompressedStreamTools;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.nbt.NBTTagDouble;
+import net.minecraft.nbt.NBTTagFloat;
+import net.minecraft.nbt.NBTTagList;
+import net.minecraft.world.chunk.storage.RegionFileCache;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Writes region files with generated chunks for the benchmarks.
+ *
+ * <p>The chunks contain a few sections with random stone and dirt blocks and
+ * a configurable number of entities and tile entities, so that the cost of
+ * (de)serializing them can be compared.</p>
+ */
+public final class SyntheticRegions {
+
+    private static final int DATA_VERSION = 1343; // 1.12.2
+    private static final int SECTIONS = 4;
+
+    private SyntheticRegions() {
+    }
+
+    /**
+     * Writes a square of chunks starting at chunk (0, 0).
+     *
+     * @param dir The world directory, the region directory is created inside
+     * @param size The number of chunks per side
+     * @param entities The number of entities per chunk
+     * @param tileEntities The number of tile entities per chunk
+     * @throws IOException If an error occurs while writing the region files
+     */
+    public static void generate(File dir, int size, int entities, int tileEntities) throws IOException {
+        Random random = new Random(size * 31 + entities * 7 + tileEntities);
+        for (int x = 0; x < size; x++) {
+            for (int z = 0; z < size; z++) {
+                try (DataOutputStream out = RegionFileCache.getChunkOutputStream(dir, x, z)) {
+                    CompressedStreamTools.write(createChunk(random, x, z, entities, tileEntities), out);
+                }
+            }
+        }
+
+        RegionFileCache.clearRegionFileReferences();
+    }
+
+    public static NBTTagCompound createChunk(Random random, int x, int z, int entities, int tileEntities) {
+        NBTTagCompound level = new NBTTagCompound();
+        level.setInteger("xPos", x);
+        level.setInteger("zPos", z);
+        level.setLong("LastUpdate", 0);
+        level.setLong("InhabitedTime", 0);
+        level.setBoolean("TerrainPopulated", true);
+        level.setBoolean("LightPopulated", true);
+        level.setIntArray("HeightMap", new int[256]);
+        level.setByteArray("Biomes", new byte[256]);
+
+        NBTTagList sections = new NBTTagList();
+        for (int y = 0; y < SECTIONS; y++) {
+            byte[] blocks = new byte[4096];
+            for (int i = 0; i < blocks.length; i++) {
+                blocks[i] = (byte) (random.nextInt(4) == 0 ? 3 : 1); // Dirt or stone
+            }
+
+            NBTTagCompound section = new NBTTagCompound();
+            section.setByte("Y", (byte) y);
+            section.setByteArray("Blocks", blocks);
+            section.setByteArray("Data", new byte[2048]);
+            section.setByteArray("BlockLight", new byte[2048]);
+            section.setByteArray("SkyLight", new byte[2048]);
+            sections.appendTag(section);
+        }
+        level.setTag("Sections", sections);
+
+        NBTTagList entityList = new NBTTagList();
+        for (int i = 0; i < entities; i++) {
+            NBTTagCompound entity = new NBTTagCompound();
+            entity.setString("id", "minecraft:armor_stand");
+            entity.setTag("Pos", doubles(x * 16 + random.nextInt(16) + 0.5, SECTIONS * 16, z * 16 + random.nextInt(16) + 0.5));
+            entity.setTag("Motion", doubles(0, 0, 0));
+            NBTTagList rotation = new NBTTagList();
+            rotation.appendTag(new NBTTagFloat(random.nextFloat() * 360));
+            rotation.appendTag(new NBTTagFloat(0));
+            entity.setTag("Rotation", rotation);
+            entityList.appendTag(entity);
+        }
+        level.setTag("Entities", entityList);
+
+        NBTTagList tileEntityList = new NBTTagList();
+        for (int i = 0; i < tileEntities; i++) {
+            NBTTagCompound tileEntity = new NBTTagCompound();
+            tileEntity.setString("id", "minecraft:chest");
+            tileEntity.setInteger("x", x * 16 + i % 16);
+            tileEntity.setInteger("y", SECTIONS * 16 + i / 256);
+            tileEntity.setInteger("z", z * 16 + i / 16 % 16);
+            tileEntity.setTag("Items", new NBTTagList());
+            tileEntityList.appendTag(tileEntity);
+        }
+        level.setTag("TileEntities", tileEntityList);
+
+        NBTTagCompound root = new NBTTagCompound();
+        root.setTag("Level", level);
+        root.setInteger("DataVersion", DATA_VERSION);
+        return root;
+    }
+
+    private static NBTTagList doubles(double... values) {
+        NBTTagList list = new NBTTagList();
+        for (double value : values) {
+            list.appendTag(new NBTTagDouble(value));
+        }
+        return list;
+    }
+
+}
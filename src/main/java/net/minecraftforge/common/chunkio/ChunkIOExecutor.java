@@ -1,21 +1,42 @@
 package net.minecraftforge.common.chunkio;
 
+import com.google.common.collect.MapMaker; // Sponge
+import it.unimi.dsi.fastutil.HashCommon; // Sponge
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap; // Sponge
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.server.management.PlayerChunkMapEntry;
+import net.minecraft.util.math.ChunkPos; // Sponge
 import net.minecraft.world.World;
+import net.minecraft.world.WorldServer;
 import net.minecraft.world.chunk.Chunk;
 import net.minecraft.world.chunk.storage.AnvilChunkLoader;
 import net.minecraft.world.gen.ChunkProviderServer;
 import org.spongepowered.common.SpongeImpl; // Sponge
+import org.spongepowered.server.world.chunkio.ChunkIOMetrics; // Sponge
+import org.spongepowered.server.world.chunkio.ChunkIOPoolController; // Sponge
+import org.spongepowered.server.world.chunkio.ChunkIOSettings; // Sponge
+import org.spongepowered.server.world.chunkio.RegionLaneExecutor; // Sponge
 //import net.minecraftforge.fml.common.FMLLog; // Sponge
 
+import java.util.ArrayList; // Sponge
+import java.util.Comparator; // Sponge
 import java.util.Iterator;
+import java.util.List; // Sponge
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap; // Sponge
+import java.util.PriorityQueue; // Sponge
+import java.util.Queue; // Sponge
+import java.util.concurrent.BlockingQueue; // Sponge
+import java.util.concurrent.ConcurrentLinkedQueue; // Sponge
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue; // Sponge
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport; // Sponge
 import java.util.function.Consumer;
 
+import javax.annotation.Nullable; // Sponge
+
 public class ChunkIOExecutor
 {
     private static final int BASE_THREADS = 1;
@@ -23,9 +44,32 @@
 
     private static final AtomicInteger threadCounter = new AtomicInteger(); // Sponge: Add static thread counter
 
-    private static final Map<QueuedChunk, ChunkIOProvider> tasks = new ConcurrentHashMap<>(); // Sponge: Construct ConcurrentHashMap directly
+    // Sponge start: Order queued loads by the distance to the nearest player, falling back to the queue order
+    private static final Comparator<Runnable> PRIORITY_ORDER = Comparator
+            .comparing((Runnable task) -> ((ChunkIOProvider) task).isPrefetch()) // Prefetches are loaded last
+            .thenComparingDouble(task -> ((ChunkIOProvider) task).getPriority())
+            .thenComparingLong(task -> ((ChunkIOProvider) task).getSequence());
+    private static volatile boolean prioritiesDirty; // Set when players move and the queue should be re-ranked
+    // Sponge end
+
+    // Sponge start: Key tasks per world by the packed chunk position, so lookups don't allocate a key
+    //private static final Map<QueuedChunk, ChunkIOProvider> tasks = new ConcurrentHashMap<>();
+    private static final Map<World, TaskMap> tasks = new MapMaker().weakKeys().makeMap(); // Compares worlds by identity
+    private static final Queue<ChunkIOProvider> finishedTasks = new ConcurrentLinkedQueue<>(); // Filled by the I/O threads, polled in tick()
+    // Sponge end
+
+    // Sponge start: Finished tasks waiting for the main thread, carried over between ticks if the time budget is exceeded
+    private static final Comparator<ChunkIOProvider> FINALIZE_ORDER = ChunkIOSettings.PRIORITIZE_LOADS
+            ? Comparator.comparingDouble(ChunkIOProvider::getPriority).thenComparingLong(ChunkIOProvider::getSequence)
+            : Comparator.comparingLong(ChunkIOProvider::getSequence);
+    private static final PriorityQueue<ChunkIOProvider> readyTasks = new PriorityQueue<>(FINALIZE_ORDER); // Main thread only
+    private static int currentTick;
+    // Sponge end
     private static final ThreadPoolExecutor pool = new ThreadPoolExecutor(BASE_THREADS, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS,
-            new LinkedBlockingQueue<Runnable>(),
+            // Sponge start: Use priority queue if enabled
+            //new LinkedBlockingQueue<Runnable>(),
+            ChunkIOSettings.PRIORITIZE_LOADS ? new PriorityBlockingQueue<>(64, PRIORITY_ORDER) : new LinkedBlockingQueue<>(),
+            // Sponge end
             /*new ThreadFactory()
             {
                 private AtomicInteger count = new AtomicInteger(1);
@@ -46,14 +90,59 @@ public Thread newThread(Runnable r)
             // Sponge end
     );
 
+    // Sponge start: Separate pool for the CPU bound part of loading chunks (decompression, parsing, data fixing)
+    private static final ThreadPoolExecutor processPool = new ThreadPoolExecutor(ChunkIOSettings.PROCESS_THREADS, ChunkIOSettings.PROCESS_THREADS,
+            60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+            r -> {
+                Thread thread = new Thread(r, "Chunk Processing Thread #" + threadCounter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+    );
+
+    static
+    {
+        processPool.allowCoreThreadTimeOut(true);
+        if (ChunkIOSettings.ADAPTIVE_POOL)
+        {
+            pool.setCorePoolSize(ChunkIOSettings.MIN_READ_THREADS);
+        }
+    }
+
+    // Sizes the read pool by load instead of players if enabled
+    private static final ChunkIOPoolController poolController = new ChunkIOPoolController(ChunkIOSettings.MIN_READ_THREADS,
+            ChunkIOSettings.MAX_READ_THREADS);
+
+    // Replaces the read pool with region-affine lanes if enabled
+    @Nullable private static final RegionLaneExecutor lanes = ChunkIOSettings.REGION_LANES > 0
+            ? new RegionLaneExecutor(ChunkIOSettings.REGION_LANES) : null;
+    // Sponge end
+
     //Load the chunk completely in this thread. Dequeue as needed...
     public static Chunk syncChunkLoad(World world, AnvilChunkLoader loader, ChunkProviderServer provider, int x, int z)
     {
-        QueuedChunk key = new QueuedChunk(x, z, world);
-        ChunkIOProvider task = tasks.remove(key); // Remove task because we will call the sync callbacks directly
+        // Sponge start: Use packed chunk position
+        //QueuedChunk key = new QueuedChunk(x, z, world);
+        //ChunkIOProvider task = tasks.remove(key); // Remove task because we will call the sync callbacks directly
+        long start = System.nanoTime();
+        long blocked = 0;
+        ChunkIOProvider task = getTasks(world).remove(ChunkPos.asLong(x, z)); // Remove task because we will call the sync callbacks directly
+        // Sponge end
         if (task != null)
         {
-            if (!pool.remove(task)) // If it wasn't in the pool, and run hasn't finished, then wait for the async thread.
+            // Sponge start: Take over the stages that haven't been started yet
+            if (task.claimRead())
+            {
+                removeRead(task); // The read thread would skip it anyway
+                task.read();
+            }
+            if (task.claimProcess())
+            {
+                processPool.remove(task.getProcessStage());
+                task.process();
+            }
+            // Sponge end
+            /*else // If it wasn't in the pool, and run hasn't finished, then wait for the async thread.
             {
                 synchronized(task)
                 {
@@ -65,45 +154,149 @@ public static Chunk syncChunkLoad(World world, AnvilChunkLoader loader, ChunkPro
                         }
                         catch (InterruptedException e)
                         {
-                            // Sponge start: Rethrow interruption
-                            //e.printStackTrace(); // Something happened? Log it?
-                            Thread.currentThread().interrupt();
-                            throw new RuntimeException("Failed to wait for chunk load", e);
-                            // Sponge end
+                            e.printStackTrace(); // Something happened? Log it?
                         }
                     }
                 }
+            }*/
+            // Sponge start: Do other work while another thread is running a stage of the task
+            if (!task.runFinished())
+            {
+                blocked = awaitTask(task);
             }
-            else
+            // Sponge end
+            // Sponge start: Moved up
+            /*else
             {
                 // If the task was not run yet we still need to load the chunk
                 task.run();
-            }
+            }*/
+            // Sponge end
         }
         else
         {
-            task = new ChunkIOProvider(key, loader, provider);
-            task.run();
+            task = new ChunkIOProvider(new QueuedChunk(x, z, world), loader, provider); // Sponge: Create key only for new tasks
+            task.load(); // Sponge: run -> load
         }
         task.syncCallback();
+        ChunkIOMetrics.recordSyncLoad(System.nanoTime() - start, blocked); // Sponge
         return task.getChunk();
     }
 
+    // Sponge start: Wait for a task without blocking the main thread idly
+
+    /**
+     * Waits until the task has finished while another thread is running
+     * one of its stages. The process stage is taken over as soon as the
+     * chunk was read, the read thread doesn't queue it while a thread is
+     * waiting for the task. Other loaded chunks are never added to the world
+     * here, since that would run their callbacks and populate neighbours
+     * nested inside the caller's chunk load.
+     *
+     * @return The time spent parked without any work, in nanoseconds
+     */
+    private static long awaitTask(ChunkIOProvider task)
+    {
+        long blocked = 0;
+
+        task.setWaiter(Thread.currentThread());
+        try
+        {
+            while (!task.runFinished())
+            {
+                if (task.claimProcess())
+                {
+                    processPool.remove(task.getProcessStage());
+                    task.process();
+                }
+                else
+                {
+                    long parkStart = System.nanoTime();
+                    LockSupport.park(task); // Woken up when a stage finishes
+                    blocked += System.nanoTime() - parkStart;
+
+                    if (Thread.interrupted())
+                    {
+                        Thread.currentThread().interrupt();
+                        throw new RuntimeException("Interrupted while waiting for chunk load");
+                    }
+                }
+            }
+        }
+        finally
+        {
+            task.setWaiter(null);
+            if (!task.runFinished())
+            {
+                queueProcessing(task); // The read thread may have left the process stage to this thread
+            }
+        }
+
+        return blocked;
+    }
+    // Sponge end
+
     //Queue the chunk to be loaded, and call the runnable when finished
     // Sponge: Runnable -> Consumer<Chunk>
     public static void queueChunkLoad(World world, AnvilChunkLoader loader, ChunkProviderServer provider, int x, int z, Consumer<Chunk> runnable)
     {
-        QueuedChunk key = new QueuedChunk(x, z, world);
-        ChunkIOProvider task = tasks.get(key);
+        queueChunkLoad(world, loader, provider, x, z, runnable, false); // Sponge: Delegate to method below
+    }
+
+    // Sponge start: Queue speculative chunk loads with the lowest priority
+    /**
+     * Queues a speculative load of a chunk a player is likely to need soon.
+     * Prefetches are only loaded once no other chunks are queued, unless a
+     * regular load for the same chunk is queued later.
+     */
+    public static void queueChunkPrefetch(World world, AnvilChunkLoader loader, ChunkProviderServer provider, int x, int z, Consumer<Chunk> runnable)
+    {
+        queueChunkLoad(world, loader, provider, x, z, runnable, true);
+    }
+    // Sponge end
+
+    // Sponge: Add prefetch parameter
+    private static void queueChunkLoad(World world, AnvilChunkLoader loader, ChunkProviderServer provider, int x, int z, Consumer<Chunk> runnable,
+            boolean prefetch)
+    {
+        // Sponge start: Use packed chunk position
+        //QueuedChunk key = new QueuedChunk(x, z, world);
+        //ChunkIOProvider task = tasks.get(key);
+        TaskMap worldTasks = getTasks(world);
+        long key = ChunkPos.asLong(x, z);
+        ChunkIOProvider task = worldTasks.get(key);
+        // Sponge end
         if (task == null)
         {
-            task = new ChunkIOProvider(key, loader, provider);
+            task = new ChunkIOProvider(new QueuedChunk(x, z, world), loader, provider); // Sponge: Create key only for new tasks
+            // Sponge start: Rank the task before it is added to the queue
+            task.setPrefetch(prefetch);
+            if (ChunkIOSettings.PRIORITIZE_LOADS)
+            {
+                task.setPriority(getPriority(world, x, z));
+            }
+            // Sponge end
             task.addCallback(runnable); // Add before calling execute for thread safety
-            tasks.put(key, task);
-            pool.execute(task);
+            worldTasks.put(key, task); // Sponge: tasks -> worldTasks
+            executeRead(task); // Sponge: pool -> executeRead
         }
         else
         {
+            // Sponge start: Promote prefetches that are now actually needed
+            if (!prefetch && task.isPrefetch())
+            {
+                // The queue order may only change while the task is not in the queue
+                if ((ChunkIOSettings.PRIORITIZE_LOADS || lanes != null) && removeRead(task))
+                {
+                    task.setPrefetch(false);
+                    executeRead(task);
+                }
+                else
+                {
+                    task.setPrefetch(false);
+                }
+            }
+            // Sponge end
             task.addCallback(runnable);
         }
     }
@@ -111,8 +304,13 @@ public static void queueChunkLoad(World world, AnvilChunkLoader loader, ChunkPro
     // Remove the chunk from the queue if it's in the list.
     public static void dropQueuedChunkLoad(World world, int x, int z, Consumer<Chunk> runnable) // Sponge: Runnable -> Consumer<Chunk>
     {
-        QueuedChunk key = new QueuedChunk(x, z, world);
-        ChunkIOProvider task = tasks.get(key);
+        // Sponge start: Use packed chunk position
+        //QueuedChunk key = new QueuedChunk(x, z, world);
+        //ChunkIOProvider task = tasks.get(key);
+        TaskMap worldTasks = getTasks(world);
+        long key = ChunkPos.asLong(x, z);
+        ChunkIOProvider task = worldTasks.get(key);
+        // Sponge end
         if (task == null)
         {
             // Sponge: Use Sponge logging
@@ -122,22 +320,39 @@ public static void dropQueuedChunkLoad(World world, int x, int z, Consumer<Chunk
         }
 
         task.removeCallback(runnable);
+        ChunkIOMetrics.recordDroppedCallback(); // Sponge
 
         if (!task.hasCallback())
         {
-            tasks.remove(key);
-            pool.remove(task);
+            worldTasks.remove(key); // Sponge: tasks -> worldTasks
+            removeRead(task); // Sponge: pool -> removeRead
         }
     }
 
     public static void adjustPoolSize(int players)
     {
+        // Sponge start: The pool controller owns the pool size if enabled
+        if (ChunkIOSettings.ADAPTIVE_POOL || lanes != null)
+        {
+            return;
+        }
+        // Sponge end
+
         pool.setCorePoolSize(Math.max(BASE_THREADS, players / PLAYERS_PER_THREAD));
     }
 
     public static void tick()
     {
-        Iterator<ChunkIOProvider> itr = tasks.values().iterator();
+        // Sponge start: Re-rank the queued loads after players have moved
+        if (ChunkIOSettings.PRIORITIZE_LOADS && lanes == null && prioritiesDirty)
+        {
+            prioritiesDirty = false;
+            reprioritize();
+        }
+        // Sponge end
+
+        // Sponge start: Only visit the finished tasks instead of all pending tasks
+        /*Iterator<ChunkIOProvider> itr = tasks.values().iterator();
         while (itr.hasNext())
         {
             ChunkIOProvider task = itr.next();
@@ -148,6 +363,326 @@ public static void tick()
 
                 itr.remove();
             }
+        }*/
+        currentTick++;
+
+        ChunkIOProvider task;
+        while ((task = finishedTasks.poll()) != null)
+        {
+            task.setFinishedTick(currentTick);
+            readyTasks.add(task);
+        }
+
+        long budget = ChunkIOSettings.FINALIZE_BUDGET_NANOS;
+        long deadline = System.nanoTime() + budget;
+        while ((task = readyTasks.peek()) != null)
+        {
+            if (budget > 0 && System.nanoTime() - deadline >= 0)
+            {
+                finalizeStarvingTasks();
+                break;
+            }
+
+            readyTasks.poll();
+            finalizeTask(task);
+        }
+
+        ChunkIOMetrics.recordDeferredFinalizations(readyTasks.size());
+
+        if (ChunkIOSettings.ADAPTIVE_POOL && lanes == null && currentTick % ChunkIOPoolController.INTERVAL_TICKS == 0)
+        {
+            int threads = poolController.update(pool.getCorePoolSize(), pool.getQueue().size());
+            if (threads != pool.getCorePoolSize())
+            {
+                pool.setCorePoolSize(threads);
+            }
+        }
+        // Sponge end
+    }
+
+    // Sponge start: Time budgeted finalization
+
+    // Skip tasks that were dropped or already completed by syncChunkLoad
+    private static void finalizeTask(ChunkIOProvider task)
+    {
+        if (removeTask(task) && task.hasCallback())
+        {
+            task.syncCallback();
+        }
+    }
+
+    // Force completion of tasks that have been deferred for too long
+    private static void finalizeStarvingTasks()
+    {
+        List<ChunkIOProvider> starving = null;
+        for (Iterator<ChunkIOProvider> itr = readyTasks.iterator(); itr.hasNext(); )
+        {
+            ChunkIOProvider task = itr.next();
+            if (currentTick - task.getFinishedTick() >= ChunkIOSettings.FINALIZE_MAX_DEFER_TICKS)
+            {
+                if (starving == null)
+                {
+                    starving = new ArrayList<>();
+                }
+                starving.add(task);
+                itr.remove();
+            }
+        }
+
+        if (starving != null)
+        {
+            starving.sort(FINALIZE_ORDER);
+            for (ChunkIOProvider task : starving)
+            {
+                finalizeTask(task);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of chunks that have been loaded, but are still
+     * waiting to be added to the world on the main thread.
+     */
+    public static int getPendingFinalizations()
+    {
+        return readyTasks.size();
+    }
+    // Sponge end
+
+    // Sponge start: Staged loading
+
+    private static void executeRead(ChunkIOProvider task)
+    {
+        if (lanes != null)
+        {
+            lanes.execute(task);
+        }
+        else
+        {
+            pool.execute(task);
+        }
+    }
+
+    // Returns true if the read stage of the task was not started yet
+    private static boolean removeRead(ChunkIOProvider task)
+    {
+        return lanes != null ? lanes.remove(task) : pool.remove(task);
+    }
+
+    static void queueProcessing(ChunkIOProvider task)
+    {
+        processPool.execute(task.getProcessStage());
+    }
+
+    /**
+     * Returns the number of threads currently reading chunks.
+     */
+    public static int getActiveReadThreads()
+    {
+        return lanes != null ? lanes.getActiveCount() : pool.getActiveCount();
+    }
+
+    public static int getReadThreads()
+    {
+        return lanes != null ? lanes.getLaneCount() : pool.getPoolSize();
+    }
+
+    /**
+     * Returns the number of threads currently processing chunks.
+     */
+    public static int getActiveProcessThreads()
+    {
+        return processPool.getActiveCount();
+    }
+
+    public static int getProcessThreads()
+    {
+        return processPool.getPoolSize();
+    }
+
+    /**
+     * Returns the number of chunks waiting to be read from disk.
+     */
+    public static int getReadQueueDepth()
+    {
+        return lanes != null ? lanes.getQueueSize() : pool.getQueue().size();
+    }
+
+    /**
+     * Returns the number of chunks that were read and are waiting to be
+     * decompressed, parsed and fixed.
+     */
+    public static int getProcessQueueDepth()
+    {
+        return processPool.getQueue().size();
+    }
+    // Sponge end
+
+    // Sponge start: Task registry
+
+    /**
+     * Called by the chunk I/O threads once a task has finished running.
+     */
+    static void onTaskFinished(ChunkIOProvider task)
+    {
+        finishedTasks.add(task);
+        task.wakeWaiter();
+    }
+
+    private static TaskMap getTasks(World world)
+    {
+        TaskMap worldTasks = tasks.get(world);
+        if (worldTasks == null)
+        {
+            worldTasks = tasks.computeIfAbsent(world, w -> new TaskMap());
+        }
+        return worldTasks;
+    }
+
+    // Removes the task if it is still the one registered for its chunk
+    private static boolean removeTask(ChunkIOProvider task)
+    {
+        QueuedChunk chunk = task.getChunkInfo();
+        TaskMap worldTasks = tasks.get(chunk.world);
+        return worldTasks != null && worldTasks.remove(ChunkPos.asLong(chunk.x, chunk.z), task);
+    }
+
+    /**
+     * The tasks of a world, keyed by the packed chunk position. The map is
+     * split into stripes with a lock each, so threads loading chunks in
+     * different areas of the world don't contend for a single lock.
+     */
+    private static final class TaskMap
+    {
+        private static final int STRIPE_BITS = 4;
+
+        @SuppressWarnings("unchecked")
+        private final Long2ObjectOpenHashMap<ChunkIOProvider>[] stripes = new Long2ObjectOpenHashMap[1 << STRIPE_BITS];
+
+        TaskMap()
+        {
+            for (int i = 0; i < this.stripes.length; i++)
+            {
+                this.stripes[i] = new Long2ObjectOpenHashMap<>();
+            }
+        }
+
+        // Uses the high bits of the hash, the low bits select the bucket within the stripe
+        private Long2ObjectOpenHashMap<ChunkIOProvider> getStripe(long key)
+        {
+            return this.stripes[(int) (HashCommon.mix(key) >>> (Long.SIZE - STRIPE_BITS))];
+        }
+
+        @Nullable
+        ChunkIOProvider get(long key)
+        {
+            Long2ObjectOpenHashMap<ChunkIOProvider> stripe = getStripe(key);
+            synchronized (stripe)
+            {
+                return stripe.get(key);
+            }
+        }
+
+        void put(long key, ChunkIOProvider task)
+        {
+            Long2ObjectOpenHashMap<ChunkIOProvider> stripe = getStripe(key);
+            synchronized (stripe)
+            {
+                stripe.put(key, task);
+            }
+        }
+
+        @Nullable
+        ChunkIOProvider remove(long key)
+        {
+            Long2ObjectOpenHashMap<ChunkIOProvider> stripe = getStripe(key);
+            synchronized (stripe)
+            {
+                return stripe.remove(key);
+            }
+        }
+
+        // Only removes the task if it is still registered for the key
+        boolean remove(long key, ChunkIOProvider task)
+        {
+            Long2ObjectOpenHashMap<ChunkIOProvider> stripe = getStripe(key);
+            synchronized (stripe)
+            {
+                if (stripe.get(key) != task)
+                {
+                    return false;
+                }
+
+                stripe.remove(key);
+                return true;
+            }
+        }
+    }
+    // Sponge end
+
+    // Sponge start: Chunk load prioritization
+
+    /**
+     * Marks the priorities of the queued chunk loads as outdated, for example
+     * because a player moved to a different chunk. The queue is re-ranked on
+     * the next {@link #tick()}.
+     */
+    public static void markPrioritiesDirty()
+    {
+        prioritiesDirty = true;
+    }
+
+    /**
+     * Returns the squared horizontal distance between the center of the
+     * chunk and the nearest player interested in it. Lower values are loaded
+     * first.
+     */
+    private static double getPriority(World world, int x, int z)
+    {
+        if (world instanceof WorldServer)
+        {
+            PlayerChunkMapEntry entry = ((WorldServer) world).getPlayerChunkMap().getEntry(x, z);
+            if (entry != null)
+            {
+                double distance = entry.getClosestPlayerDistance();
+                if (distance != Double.MAX_VALUE)
+                {
+                    return distance;
+                }
+            }
+        }
+
+        // The entry has no players yet (it is still being created), so use the nearest player in the world
+        double centerX = (x << 4) + 8;
+        double centerZ = (z << 4) + 8;
+        double nearest = Double.MAX_VALUE;
+        for (EntityPlayer player : world.playerEntities)
+        {
+            double dx = centerX - player.posX;
+            double dz = centerZ - player.posZ;
+            nearest = Math.min(nearest, dx * dx + dz * dz);
+        }
+        return nearest;
+    }
+
+    private static void reprioritize()
+    {
+        BlockingQueue<Runnable> queue = pool.getQueue();
+        if (queue.isEmpty())
+        {
+            return;
+        }
+
+        // The priority queue does not re-order elements that change, so take them out, update them and put them back
+        List<Runnable> queued = new ArrayList<>(queue.size());
+        queue.drainTo(queued);
+        for (Runnable runnable : queued)
+        {
+            ChunkIOProvider task = (ChunkIOProvider) runnable;
+            QueuedChunk chunk = task.getChunkInfo();
+            task.setPriority(getPriority(chunk.world, chunk.x, chunk.z));
         }
+        queue.addAll(queued);
     }
+    // Sponge end
 }
@@ -1,5 +1,6 @@
 package net.minecraftforge.common.chunkio;
 
+import com.google.common.io.CountingInputStream; // Sponge
 import net.minecraft.world.chunk.Chunk;
 import net.minecraft.world.chunk.storage.AnvilChunkLoader;
 import net.minecraft.world.gen.ChunkProviderServer;
@@ -9,23 +10,57 @@
 import org.spongepowered.server.mixin.chunkio.ChunkProviderServerAccessor_Vanilla;
 import org.spongepowered.server.mixin.core.world.chunk.storage.AnvilChunkLoaderAccessor_Vanilla;
 import org.spongepowered.server.world.chunkio.AsyncAnvilChunkLoader; // Sponge
+import org.spongepowered.server.world.chunkio.ChunkIOMetrics; // Sponge
+import org.spongepowered.server.world.chunkio.ChunkIOPoolController; // Sponge
+import org.spongepowered.server.world.chunkio.PreparedChunkEntities; // Sponge
+import org.spongepowered.server.world.chunkio.RegionLaneExecutor; // Sponge
 //import net.minecraftforge.common.MinecraftForge; // Sponge
 //import net.minecraftforge.event.world.ChunkDataEvent; // Sponge
 
+import java.io.DataInputStream; // Sponge
+import java.io.File; // Sponge
 import java.io.IOException;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger; // Sponge
+import java.util.concurrent.atomic.AtomicLong; // Sponge
+import java.util.concurrent.locks.LockSupport; // Sponge
 import java.util.function.Consumer;
 
-class ChunkIOProvider implements Runnable
+import javax.annotation.Nullable; // Sponge
+
+class ChunkIOProvider implements RegionLaneExecutor.RegionTask // Sponge: Runnable -> RegionTask
 {
+    private static final AtomicLong sequenceCounter = new AtomicLong(); // Sponge
+
     private final QueuedChunk chunkInfo;
     private final AnvilChunkLoader loader;
     private final ChunkProviderServer provider;
 
     private Chunk chunk;
     private NBTTagCompound nbt;
+    @Nullable private PreparedChunkEntities entities; // Sponge: Entities parsed in the process stage
+    @Nullable private DataInputStream data; // Sponge: Compressed data between the read and process stage
+    private final Runnable processStage = this::runProcessStage; // Sponge
     private final ConcurrentLinkedQueue<Consumer<Chunk>> callbacks = new ConcurrentLinkedQueue<>(); // Sponge: Runnable -> Consumer<Chunk>
-    private boolean ran = false;
+    //private boolean ran = false; // Sponge: Replaced with state
+
+    // Sponge start: Stages of the task, each stage is claimed by exactly one thread
+    private static final int QUEUED = 0;
+    private static final int READING = 1;
+    private static final int READ = 2;
+    private static final int PROCESSING = 3;
+    private static final int DONE = 4;
+    private final AtomicInteger state = new AtomicInteger(QUEUED);
+    // Sponge end
+
+    // Sponge start: Scheduling state and metrics
+    private final long sequence = sequenceCounter.getAndIncrement();
+    private double priority;
+    private int finishedTick; // Main thread only
+    private final long queueTime = System.nanoTime();
+    private boolean prefetch;
+    @Nullable private volatile Thread waiter; // The thread blocked in syncChunkLoad until the task has finished
+    // Sponge end
 
     ChunkIOProvider(QueuedChunk chunk, AnvilChunkLoader loader, ChunkProviderServer provider)
     {
@@ -34,6 +69,74 @@ class ChunkIOProvider implements Runnable
         this.provider = provider;
     }
 
+    // Sponge start
+    QueuedChunk getChunkInfo()
+    {
+        return this.chunkInfo;
+    }
+
+    @Override
+    public File getSaveLocation()
+    {
+        return ((AnvilChunkLoaderAccessor_Vanilla) this.loader).accessor$getChunkSaveLocation();
+    }
+
+    @Override
+    public int getChunkX()
+    {
+        return this.chunkInfo.x;
+    }
+
+    @Override
+    public int getChunkZ()
+    {
+        return this.chunkInfo.z;
+    }
+
+    @Override
+    public boolean isDeferred()
+    {
+        return this.prefetch;
+    }
+
+    long getSequence()
+    {
+        return this.sequence;
+    }
+
+    double getPriority()
+    {
+        return this.priority;
+    }
+
+    // Only change the priority while the task is not in the executor queue
+    void setPriority(double priority)
+    {
+        this.priority = priority;
+    }
+
+    boolean isPrefetch()
+    {
+        return this.prefetch;
+    }
+
+    // Only change while the task is not in the executor queue
+    void setPrefetch(boolean prefetch)
+    {
+        this.prefetch = prefetch;
+    }
+
+    int getFinishedTick()
+    {
+        return this.finishedTick;
+    }
+
+    void setFinishedTick(int finishedTick)
+    {
+        this.finishedTick = finishedTick;
+    }
+    // Sponge end
+
     public void addCallback(Consumer<Chunk> callback) // Sponge: Runnable -> Consumer<Chunk>
     {
         this.callbacks.add(callback);
@@ -43,20 +146,152 @@ public void removeCallback(Consumer<Chunk> callback) // Sponge: Runnable -> Cons
         this.callbacks.remove(callback);
     }
 
+    // Sponge start: Split loading into a read stage (I/O) and a process stage (CPU)
     @Override
     public void run() // async stuff
     {
-        synchronized(this)
+        if (!this.claimRead())
+        {
+            return; // Taken over by syncChunkLoad
+        }
+
+        long start = System.nanoTime();
+        long wait = start - this.queueTime;
+        ChunkIOMetrics.recordQueueWait(wait);
+        this.read();
+        ChunkIOMetrics.recordRead(System.nanoTime() - start);
+
+        if (this.nbt != null || this.data != null)
+        {
+            if (this.waiter == null) // A waiting thread was woken up by read and takes over the process stage
+            {
+                ChunkIOExecutor.queueProcessing(this);
+            }
+        }
+        else if (this.claimProcess())
+        {
+            this.process(); // Nothing to decode, finish directly
+        }
+
+        ChunkIOPoolController.recordTask(wait, System.nanoTime() - start);
+    }
+
+    // Runs the stages that weren't started yet on the current thread
+    void load()
+    {
+        if (this.claimRead())
+        {
+            this.read();
+        }
+        if (this.claimProcess())
+        {
+            this.process();
+        }
+    }
+
+    // Only set by the thread waiting in syncChunkLoad
+    void setWaiter(@Nullable Thread waiter)
+    {
+        this.waiter = waiter;
+    }
+
+    // Called when a stage has finished
+    void wakeWaiter()
+    {
+        Thread waiter = this.waiter;
+        if (waiter != null)
+        {
+            LockSupport.unpark(waiter);
+        }
+    }
+
+        Runnable getProcessStage()
+    {
+        return this.processStage;
+    }
+
+    /**
+     * Claims the read stage for the current thread.
+     *
+     * @return True if the stage was not claimed yet and must be run with
+     *     {@link #read()} by the caller
+     */
+    boolean claimRead()
+    {
+        return this.state.compareAndSet(QUEUED, READING);
+    }
+
+    /**
+     * Claims the process stage for the current thread.
+     *
+     * @return True if the chunk was read and the stage must be run with
+     *     {@link #process()} by the caller
+     */
+    boolean claimProcess()
+    {
+        return this.state.compareAndSet(READ, PROCESSING);
+    }
+
+    // Only call after claimRead
+    void read()
+    {
+        try
+        {
+            this.nbt = AsyncAnvilChunkLoader.readPending(this.loader, this.chunkInfo.x, this.chunkInfo.z);
+            if (this.nbt == null)
+            {
+                this.data = AsyncAnvilChunkLoader.openChunk(this.loader, this.chunkInfo.x, this.chunkInfo.z);
+            }
+        }
+        catch (IOException e)
+        {
+            SpongeImpl.getLogger().error("Could not load chunk in {} @ ({}, {})", this.chunkInfo.world, this.chunkInfo.x, this.chunkInfo.z, e);
+        }
+        finally
+        {
+            this.state.set(READ); // Publishes the read data to the thread claiming the process stage
+            this.wakeWaiter();
+        }
+    }
+
+    private void runProcessStage()
+    {
+        if (this.claimProcess())
+        {
+            this.process();
+        }
+    }
+    // Sponge end
+
+    void process() // Sponge: Moved from run, only call after claimProcess
+    {
+        // Sponge: Stage is owned by the current thread, no need to synchronize
+        //synchronized(this)
         {
             //Object[] data = null; // Sponge
             try
             {
                 // Sponge start: Use Sponge's async chunk load method
                 //data = this.loader.loadChunk__Async(chunkInfo.world, chunkInfo.x, chunkInfo.z);
-                this.nbt = AsyncAnvilChunkLoader.read(this.loader, this.chunkInfo.x, this.chunkInfo.z);
+                long start = System.nanoTime();
+                long bytes = 0;
+                if (this.data != null)
+                {
+                    try (CountingInputStream in = new CountingInputStream(this.data))
+                    {
+                        this.nbt = AsyncAnvilChunkLoader.decode(this.loader, new DataInputStream(in));
+                        bytes = in.getCount();
+                    }
+                    this.data = null;
+                }
                 if (this.nbt != null) {
                     this.chunk = ((AnvilChunkLoaderAccessor_Vanilla) this.loader).accessor$checkedReadChunkFromNBT(this.chunkInfo.world, this.chunkInfo.x, this.chunkInfo.z, this.nbt);
+                    if (this.chunk != null)
+                    {
+                        this.entities = AsyncAnvilChunkLoader.prepareEntities(this.nbt);
+                    }
                 }
+                ChunkIOMetrics.recordProcess(this.chunkInfo.world, System.nanoTime() - start, bytes);
                 // Sponge end
             }
             catch (IOException e)
@@ -65,6 +300,12 @@ public void run() // async stuff
                 //e.printStackTrace();
                 SpongeImpl.getLogger().error("Could not load chunk in {} @ ({}, {})", this.chunkInfo.world, this.chunkInfo.x, this.chunkInfo.z, e);
             }
+            // Sponge start: Always finish the task, a task stuck in processing would block syncChunkLoad forever
+            finally
+            {
+                this.state.set(DONE);
+            }
+            // Sponge end
 
             // Sponge start: data is not used
             /*if (data != null)
@@ -74,9 +315,11 @@ public void run() // async stuff
             }*/
             // Sponge end
 
-            this.ran = true;
-            this.notifyAll();
+            //this.ran = true; // Sponge: Replaced with state
+            //this.notifyAll(); // Sponge: Waiting threads are woken in onTaskFinished
         }
+
+        ChunkIOExecutor.onTaskFinished(this); // Sponge: Hand over to the main thread
     }
 
     // sync stuff
@@ -91,7 +334,9 @@ public void syncCallback()
         // Load Entities
         // Sponge: Use Sponge's loadEntities method
         //this.loader.loadEntities(this.chunkInfo.world, this.nbt.getCompoundTag("Level"), this.chunk);
-        AsyncAnvilChunkLoader.loadEntities(this.chunkInfo.world, this.chunk, this.nbt);
+        //AsyncAnvilChunkLoader.loadEntities(this.chunkInfo.world, this.chunk, this.nbt);
+        AsyncAnvilChunkLoader.loadEntities(this.chunkInfo.world, this.chunk, this.entities); // Only build the objects parsed in process
+        this.entities = null;
 
         // Sponge: Don't call Forge event
         //MinecraftForge.EVENT_BUS.post(new ChunkDataEvent.Load(this.chunk, this.nbt)); // Don't call ChunkDataEvent.Load async
@@ -114,7 +359,7 @@ public Chunk getChunk()
 
     public boolean runFinished()
     {
-        return this.ran;
+        return this.state.get() == DONE; // Sponge: ran -> state
     }
 
     public boolean hasCallback()
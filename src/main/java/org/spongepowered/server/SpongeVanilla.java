@@ -50,7 +50,10 @@
 import org.spongepowered.api.Game;
 import org.spongepowered.api.GameState;
 import org.spongepowered.api.Sponge;
+import org.spongepowered.api.event.Order;
 import org.spongepowered.api.event.SpongeEventFactory;
+import org.spongepowered.api.event.world.LoadWorldEvent;
+import org.spongepowered.api.event.world.UnloadWorldEvent;
 import org.spongepowered.api.service.permission.PermissionService;
 import org.spongepowered.api.service.sql.SqlService;
 import org.spongepowered.common.SpongeBootstrap;
@@ -70,6 +73,9 @@
 import org.spongepowered.common.service.sql.SqlServiceImpl;
 import org.spongepowered.common.util.SpongeHooks;
 import org.spongepowered.common.world.storage.SpongePlayerDataHandler;
+import org.spongepowered.server.command.ChunkIOCommand;
+import org.spongepowered.server.command.PregenCommand;
+import org.spongepowered.server.command.TickTimesCommand;
 import org.spongepowered.server.inject.SpongeVanillaModule;
 import org.spongepowered.server.launch.VanillaCommandLine;
 import org.spongepowered.server.launch.VanillaLaunch;
@@ -80,6 +86,9 @@
 import org.spongepowered.server.plugin.MinecraftPluginContainer;
 import org.spongepowered.server.plugin.SpongeCommonContainer;
 import org.spongepowered.server.plugin.VanillaPluginManager;
+import org.spongepowered.server.world.chunkio.ChunkNBTCache;
+import org.spongepowered.server.world.chunkio.ChunkPregenerator;
+import org.spongepowered.server.world.chunkio.ChunkSaveFilter;
 
 import java.io.File;
 import java.io.IOException;
@@ -114,6 +123,10 @@ public void preInitialize() throws Exception {
         PhaseTracker.SERVER.init(); // Needs to occur after the game registry registers all the builders.
 
         this.game.getEventManager().registerListeners(this, SpongeInternalListeners.getInstance());
+        this.game.getEventManager().registerListener(this, UnloadWorldEvent.class, Order.POST, ChunkNBTCache::onWorldUnload);
+        this.game.getEventManager().registerListener(this, UnloadWorldEvent.class, Order.POST, ChunkSaveFilter::onWorldUnload);
+        this.game.getEventManager().registerListener(this, LoadWorldEvent.class, Order.POST, ChunkPregenerator::onWorldLoad);
+        this.game.getEventManager().registerListener(this, UnloadWorldEvent.class, Order.POST, ChunkPregenerator::onWorldUnload);
         SpongeBootstrap.initializeServices();
         SpongeBootstrap.initializeCommands();
         for (EntityTypeRegistryModule.FutureRegistration registration : EntityTypeRegistryModule.getInstance().getCustomEntities()) {
@@ -168,6 +181,9 @@ public void initialize() {
 
     public void onServerAboutToStart() {
         ((ServerCommandManagerBridge) SpongeImpl.getServer().getCommandManager()).bridge$registerEarlyCommands(this.game);
+        this.game.getCommandManager().register(this, ChunkIOCommand.create(), "chunkio");
+        this.game.getCommandManager().register(this, PregenCommand.create(), "pregen");
+        this.game.getCommandManager().register(this, TickTimesCommand.create(), "ticktimes");
         SpongeImpl.postState(GameState.SERVER_ABOUT_TO_START, SpongeEventFactory.createGameAboutToStartServerEvent(Sponge.getCauseStackManager().getCurrentCause()));
     }
 
@@ -32,4 +32,6 @@ public interface ChunkIOProviderBridge_Vanilla {
 
     Chunk vanillaBridge$loadChunk(int x, int z, Consumer<Chunk> callback);
 
+    void vanillaBridge$prefetchChunk(int x, int z, Consumer<Chunk> callback);
+
 }
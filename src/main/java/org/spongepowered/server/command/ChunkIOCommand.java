@@ -0,0 +1,115 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.server.command;
+
+import net.minecraft.world.World;
+import net.minecraftforge.common.chunkio.ChunkIOExecutor;
+import org.spongepowered.api.command.CommandResult;
+import org.spongepowered.api.command.CommandSource;
+import org.spongepowered.api.command.spec.CommandSpec;
+import org.spongepowered.api.text.Text;
+import org.spongepowered.api.text.format.TextColors;
+import org.spongepowered.server.util.LatencyHistogram;
+import org.spongepowered.server.world.chunkio.ChunkIOMetrics;
+import org.spongepowered.server.world.chunkio.ChunkIOPoolController;
+import org.spongepowered.server.world.chunkio.ChunkIOSettings;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+
+/**
+ * Shows the state of the asynchronous chunk loading, see {@link ChunkIOMetrics}.
+ */
+public final class ChunkIOCommand {
+
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss").withZone(ZoneId.systemDefault());
+
+    private ChunkIOCommand() {
+    }
+
+    public static CommandSpec create() {
+        return CommandSpec.builder()
+                .permission("sponge.command.chunkio")
+                .description(Text.of("Shows chunk loading statistics"))
+                .child(CommandSpec.builder()
+                        .permission("sponge.command.chunkio.reset")
+                        .description(Text.of("Resets the chunk loading statistics"))
+                        .executor((src, args) -> {
+                            ChunkIOMetrics.reset();
+                            src.sendMessage(Text.of(TextColors.GREEN, "Chunk loading statistics have been reset."));
+                            return CommandResult.success();
+                        })
+                        .build(), "reset")
+                .executor((src, args) -> {
+                    send(src);
+                    return CommandResult.success();
+                })
+                .build();
+    }
+
+    private static void send(CommandSource src) {
+        src.sendMessage(Text.of(TextColors.GOLD, "Chunk I/O"));
+        line(src, "Pending", ChunkIOExecutor.getReadQueueDepth() + " read, " + ChunkIOExecutor.getProcessQueueDepth() + " process, "
+                + ChunkIOExecutor.getPendingFinalizations() + " finalize");
+        line(src, "Threads", ChunkIOExecutor.getActiveReadThreads() + "/" + ChunkIOExecutor.getReadThreads() + " read, "
+                + ChunkIOExecutor.getActiveProcessThreads() + "/" + ChunkIOExecutor.getProcessThreads() + " process");
+        if (ChunkIOSettings.ADAPTIVE_POOL) {
+            for (ChunkIOPoolController.PoolResize resize : ChunkIOMetrics.getPoolResizes()) {
+                line(src, "Resized " + TIME_FORMAT.format(Instant.ofEpochMilli(resize.getTime())), resize.toString());
+            }
+        }
+        line(src, "Sync loads", format(ChunkIOMetrics.getSyncLoadLatency()));
+        line(src, "Sync blocked", format(ChunkIOMetrics.getSyncBlocked()) + String.format(", total %.1fms",
+                ChunkIOMetrics.getSyncBlocked().getTotal() / 1e6));
+        line(src, "Dropped callbacks", String.valueOf(ChunkIOMetrics.getDroppedCallbacks()));
+        if (ChunkIOSettings.CACHE_BYTES > 0) {
+            line(src, "Cache", ChunkIOMetrics.getCacheHits() + " hits, " + ChunkIOMetrics.getCacheMisses() + " misses, "
+                    + String.format("%.1f MiB", ChunkIOMetrics.getCacheBytes() / (1024.0 * 1024.0)));
+        }
+        if (ChunkIOSettings.SAVE_FILTER_ENTRIES > 0) {
+            line(src, "Unchanged saves skipped", String.valueOf(ChunkIOMetrics.getSkippedSaves()));
+        }
+        line(src, "Deferred finalizations", String.valueOf(ChunkIOMetrics.getDeferredFinalizations()));
+        line(src, "Queue wait", format(ChunkIOMetrics.getQueueWait()));
+        line(src, "Read", format(ChunkIOMetrics.getReadLatency()));
+        line(src, "Process", format(ChunkIOMetrics.getProcessLatency()));
+
+        for (Map.Entry<World, Long> entry : ChunkIOMetrics.getBytesRead().entrySet()) {
+            line(src, "Read from " + entry.getKey().getWorldInfo().getWorldName(), String.format("%.1f MiB", entry.getValue() / (1024.0 * 1024.0)));
+        }
+    }
+
+    private static void line(CommandSource src, String name, String value) {
+        src.sendMessage(Text.of(TextColors.GRAY, " ", name, ": ", TextColors.WHITE, value));
+    }
+
+    static String format(LatencyHistogram histogram) {
+        return String.format("%d samples, p50 %.2fms, p99 %.2fms, max %.2fms", histogram.getCount(),
+                histogram.getPercentile(0.5) / 1e6, histogram.getPercentile(0.99) / 1e6, histogram.getMax() / 1e6);
+    }
+
+}
@@ -0,0 +1,158 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.server.command;
+
+import static org.spongepowered.api.command.args.GenericArguments.enumValue;
+import static org.spongepowered.api.command.args.GenericArguments.flags;
+import static org.spongepowered.api.command.args.GenericArguments.integer;
+import static org.spongepowered.api.command.args.GenericArguments.none;
+import static org.spongepowered.api.command.args.GenericArguments.world;
+
+import net.minecraft.world.WorldServer;
+import org.spongepowered.api.Sponge;
+import org.spongepowered.api.command.CommandException;
+import org.spongepowered.api.command.CommandResult;
+import org.spongepowered.api.command.CommandSource;
+import org.spongepowered.api.command.args.CommandContext;
+import org.spongepowered.api.command.spec.CommandSpec;
+import org.spongepowered.api.text.Text;
+import org.spongepowered.api.text.format.TextColors;
+import org.spongepowered.api.world.Locatable;
+import org.spongepowered.api.world.storage.WorldProperties;
+import org.spongepowered.server.world.chunkio.ChunkPregenerator;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts, cancels and shows chunk pre-generation tasks, see {@link ChunkPregenerator}.
+ */
+public final class PregenCommand {
+
+    private PregenCommand() {
+    }
+
+    public static CommandSpec create() {
+        return CommandSpec.builder()
+                .permission("sponge.command.pregen")
+                .description(Text.of("Pre-generates the chunks around a position"))
+                .child(CommandSpec.builder()
+                        .description(Text.of("Starts pre-generating the chunks in a radius around a chunk"))
+                        .arguments(flags()
+                                .valueFlag(world(Text.of("world")), "-world", "w")
+                                .valueFlag(integer(Text.of("x")), "x")
+                                .valueFlag(integer(Text.of("z")), "z")
+                                .valueFlag(enumValue(Text.of("shape"), ChunkPregenerator.Shape.class), "-shape", "s")
+                                .valueFlag(integer(Text.of("tps")), "-tps")
+                                .valueFlag(integer(Text.of("mspt")), "-mspt")
+                                .buildWith(integer(Text.of("radius"))))
+                        .executor(PregenCommand::start)
+                        .build(), "start")
+                .child(CommandSpec.builder()
+                        .description(Text.of("Cancels the pre-generation in a world"))
+                        .arguments(flags().valueFlag(world(Text.of("world")), "-world", "w").buildWith(none()))
+                        .executor((src, args) -> {
+                            WorldServer world = getWorld(src, args);
+                            if (!ChunkPregenerator.cancel(world)) {
+                                throw new CommandException(Text.of("No chunks are pre-generated in ", world.getWorldInfo().getWorldName()));
+                            }
+                            src.sendMessage(Text.of(TextColors.GREEN, "Cancelled the pre-generation in ", world.getWorldInfo().getWorldName(), "."));
+                            return CommandResult.success();
+                        })
+                        .build(), "cancel")
+                .executor((src, args) -> {
+                    send(src);
+                    return CommandResult.success();
+                })
+                .build();
+    }
+
+    private static CommandResult start(CommandSource src, CommandContext args) throws CommandException {
+        WorldServer world = getWorld(src, args);
+        int radius = args.<Integer>getOne("radius").get();
+        if (radius < 0 || radius > ChunkPregenerator.MAX_RADIUS) {
+            throw new CommandException(Text.of("The radius must be between 0 and ", ChunkPregenerator.MAX_RADIUS));
+        }
+
+        int centerX;
+        int centerZ;
+        if (src instanceof Locatable && ((Locatable) src).getWorld() == world) {
+            centerX = ((Locatable) src).getLocation().getChunkPosition().getX();
+            centerZ = ((Locatable) src).getLocation().getChunkPosition().getZ();
+        } else {
+            centerX = world.getSpawnPoint().getX() >> 4;
+            centerZ = world.getSpawnPoint().getZ() >> 4;
+        }
+        centerX = args.<Integer>getOne("x").orElse(centerX);
+        centerZ = args.<Integer>getOne("z").orElse(centerZ);
+
+        long budget;
+        Optional<Integer> mspt = args.getOne("mspt");
+        Optional<Integer> tps = args.getOne("tps");
+        if (mspt.isPresent()) {
+            budget = TimeUnit.MILLISECONDS.toNanos(Math.max(1, mspt.get()));
+        } else {
+            // Keep enough headroom to reach the target TPS
+            budget = TimeUnit.SECONDS.toNanos(1) / Math.max(1, Math.min(20, tps.orElse(20)));
+        }
+
+        ChunkPregenerator.Task task = ChunkPregenerator.start(world, centerX, centerZ, radius,
+                args.<ChunkPregenerator.Shape>getOne("shape").orElse(ChunkPregenerator.Shape.SPIRAL), budget);
+        src.sendMessage(Text.of(TextColors.GREEN, "Pre-generating ", task.getTotal(), " chunks around (", centerX, ", ", centerZ, ") in ",
+                world.getWorldInfo().getWorldName(), "."));
+        return CommandResult.success();
+    }
+
+    private static WorldServer getWorld(CommandSource src, CommandContext args) throws CommandException {
+        Optional<WorldProperties> properties = args.getOne("world");
+        if (properties.isPresent()) {
+            return (WorldServer) Sponge.getServer().getWorld(properties.get().getUniqueId())
+                    .orElseThrow(() -> new CommandException(Text.of("World ", properties.get().getWorldName(), " is not loaded")));
+        }
+        if (src instanceof Locatable) {
+            return (WorldServer) ((Locatable) src).getWorld();
+        }
+        return (WorldServer) Sponge.getServer().getWorld(Sponge.getServer().getDefaultWorldName())
+                .orElseThrow(() -> new CommandException(Text.of("The default world is not loaded")));
+    }
+
+    private static void send(CommandSource src) {
+        if (ChunkPregenerator.getTasks().isEmpty()) {
+            src.sendMessage(Text.of(TextColors.GRAY, "No chunks are being pre-generated."));
+            return;
+        }
+
+        src.sendMessage(Text.of(TextColors.GOLD, "Chunk pre-generation"));
+        for (ChunkPregenerator.Task task : ChunkPregenerator.getTasks()) {
+            double rate = task.getChunksPerSecond();
+            int remaining = task.getTotal() - task.getCompleted();
+            String eta = rate > 0 ? String.format(", %ds left", (long) (remaining / rate)) : "";
+            src.sendMessage(Text.of(TextColors.GRAY, " ", task.getWorld().getWorldInfo().getWorldName(), ": ", TextColors.WHITE,
+                    String.format("%d/%d chunks (%.1f%%), %.1f chunks/s, window %d%s", task.getCompleted(), task.getTotal(),
+                            task.getCompleted() * 100.0 / task.getTotal(), rate, task.getWindow(), eta)));
+        }
+    }
+
+}
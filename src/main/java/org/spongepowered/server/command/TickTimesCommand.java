@@ -0,0 +1,106 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.server.command;
+
+import static org.spongepowered.api.command.args.GenericArguments.enumValue;
+import static org.spongepowered.api.command.args.GenericArguments.optional;
+
+import net.minecraft.world.WorldServer;
+import org.spongepowered.api.command.CommandResult;
+import org.spongepowered.api.command.CommandSource;
+import org.spongepowered.api.command.spec.CommandSpec;
+import org.spongepowered.api.text.Text;
+import org.spongepowered.api.text.format.TextColors;
+import org.spongepowered.common.SpongeImpl;
+import org.spongepowered.server.bridge.server.MinecraftServerBridge_Vanilla;
+import org.spongepowered.server.tick.MainThreadTaskQueue;
+import org.spongepowered.server.tick.ServerHibernation;
+import org.spongepowered.server.tick.TaskPriority;
+import org.spongepowered.server.tick.TickPhase;
+import org.spongepowered.server.tick.TickTimings;
+
+import java.util.Locale;
+
+/**
+ * Shows the percentiles of the tick times over a sliding window, see {@link TickTimings}.
+ */
+public final class TickTimesCommand {
+
+    private TickTimesCommand() {
+    }
+
+    public static CommandSpec create() {
+        return CommandSpec.builder()
+                .permission("sponge.command.ticktimes")
+                .description(Text.of("Shows tick time percentiles"))
+                .child(CommandSpec.builder()
+                        .permission("sponge.command.ticktimes.reset")
+                        .description(Text.of("Resets the recorded tick times"))
+                        .executor((src, args) -> {
+                            TickTimings.reset();
+                            src.sendMessage(Text.of(TextColors.GREEN, "Tick times have been reset."));
+                            return CommandResult.success();
+                        })
+                        .build(), "reset")
+                .arguments(optional(enumValue(Text.of("window"), TickTimings.Window.class)))
+                .executor((src, args) -> {
+                    send(src, args.<TickTimings.Window>getOne("window").orElse(TickTimings.Window.ONE_MINUTE));
+                    return CommandResult.success();
+                })
+                .build();
+    }
+
+    private static void send(CommandSource src, TickTimings.Window window) {
+        src.sendMessage(Text.of(TextColors.GOLD, "Tick times (", window.name().toLowerCase(Locale.ENGLISH), ")"));
+        if (ServerHibernation.isEnabled()) {
+            line(src, "Hibernating", String.valueOf(ServerHibernation.isHibernating()));
+        }
+        line(src, "Tick", ChunkIOCommand.format(TickTimings.getTickTimes(window)));
+        for (TickPhase phase : TickPhase.values()) {
+            line(src, "  " + phase.name().toLowerCase(Locale.ENGLISH), ChunkIOCommand.format(TickTimings.getPhaseTimes(phase, window)));
+        }
+
+        MainThreadTaskQueue taskQueue = ((MinecraftServerBridge_Vanilla) SpongeImpl.getServer()).vanillaBridge$getTaskQueue();
+        for (TaskPriority priority : TaskPriority.values()) {
+            line(src, "Queued " + priority.name().toLowerCase(Locale.ENGLISH), taskQueue.getPending(priority) + " waiting, "
+                    + ChunkIOCommand.format(TickTimings.getTaskLatency(priority, window)));
+        }
+
+        for (WorldServer world : TickTimings.getWorlds()) {
+            line(src, world.getWorldInfo().getWorldName(), ChunkIOCommand.format(TickTimings.getWorldTimes(world, window)));
+            for (TickPhase phase : TickPhase.values()) {
+                if (phase.isPerWorld()) {
+                    line(src, "  " + phase.name().toLowerCase(Locale.ENGLISH),
+                            ChunkIOCommand.format(TickTimings.getWorldPhaseTimes(world, phase, window)));
+                }
+            }
+        }
+    }
+
+    private static void line(CommandSource src, String name, String value) {
+        src.sendMessage(Text.of(TextColors.GRAY, " ", name, ": ", TextColors.WHITE, value));
+    }
+
+}
@@ -0,0 +1,351 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.server.launch;
+
+import org.spongepowered.server.world.chunkio.RegionCodec;
+import org.spongepowered.server.world.chunkio.RegionCodecs;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.annotation.Nullable;
+
+/**
+ * Rewrites region files offline to remove the space left behind by chunks
+ * that outgrew their sectors and were moved to the end of the file.
+ *
+ * <p>Each region file is written again with its chunks packed without gaps,
+ * in Z-order of their position, so neighbouring chunks end up close to each
+ * other in the file. Sectors that aren't referenced by any chunk are dropped,
+ * the timestamps are kept. Optionally, all chunks are converted to another
+ * {@link RegionCodec} in the same pass.</p>
+ *
+ * <p>Run with {@code --compact-regions <dir>} while the server is stopped.
+ * All region directories below the directory are compacted.</p>
+ */
+public final class RegionCompactor {
+
+    private static final int SECTOR_BYTES = 4096;
+    private static final int HEADER_BYTES = SECTOR_BYTES * 2; // Offsets and timestamps
+    private static final int MAX_SECTORS = 255; // The sector count in the offset is a single byte
+    private static final Pattern REGION_FILE = Pattern.compile("r\\.-?\\d+\\.-?\\d+\\.mca");
+
+    @Nullable private final RegionCodec codec;
+    private final boolean dryRun;
+
+    // Totals, guarded by this
+    private int regions;
+    private int chunks;
+    private int recompressed;
+    private int dropped;
+    private long sizeBefore;
+    private long sizeAfter;
+
+    /**
+     * Creates a new compactor.
+     *
+     * @param codec The codec to convert the chunks to, or null to keep the
+     *     compression of each chunk
+     * @param dryRun Whether to only compute the size of the compacted files
+     *     without replacing them
+     */
+    public RegionCompactor(@Nullable RegionCodec codec, boolean dryRun) {
+        this.codec = codec;
+        this.dryRun = dryRun;
+    }
+
+    /**
+     * Compacts all region files in the region directories below the given
+     * directory and prints the space saved.
+     *
+     * @param dir The world directory, or the directory containing all worlds
+     * @param threads The number of region files processed in parallel
+     * @return True if all region files were compacted successfully
+     * @throws IOException If the directory can't be scanned
+     */
+    public boolean run(Path dir, int threads) throws IOException {
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(dir)) {
+            files = paths
+                    .filter(path -> REGION_FILE.matcher(path.getFileName().toString()).matches())
+                    .filter(path -> path.getParent().getFileName().toString().equals("region"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+
+        if (files.isEmpty()) {
+            System.err.println("No region files found in " + dir.toAbsolutePath());
+            return false;
+        }
+
+        System.out.println((this.dryRun ? "Checking " : "Compacting ") + files.size() + " region files in " + dir.toAbsolutePath()
+                + (this.codec != null ? " (converting to " + this.codec.getName() + ")" : "") + "...");
+        System.out.println("Make sure the server is stopped, region files changed during compaction will be corrupted.");
+
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        List<Future<?>> futures = new ArrayList<>(files.size());
+        for (Path file : files) {
+            futures.add(executor.submit(() -> {
+                compact(file);
+                return null;
+            }));
+        }
+        executor.shutdown();
+
+        boolean success = true;
+        for (int i = 0; i < files.size(); i++) {
+            try {
+                futures.get(i).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                executor.shutdownNow();
+                return false;
+            } catch (ExecutionException e) {
+                System.err.println("Failed to compact " + files.get(i) + ":");
+                e.getCause().printStackTrace();
+                success = false;
+            }
+        }
+
+        synchronized (this) {
+            long saved = this.sizeBefore - this.sizeAfter;
+            System.out.printf("%s %d chunks in %d regions in %ds: %s -> %s, %s %s (%.1f%%)%n",
+                    this.dryRun ? "Checked" : "Compacted", this.chunks, this.regions,
+                    TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start), formatBytes(this.sizeBefore), formatBytes(this.sizeAfter),
+                    this.dryRun ? "would save" : "saved", formatBytes(saved), this.sizeBefore > 0 ? saved * 100.0 / this.sizeBefore : 0);
+            if (this.recompressed > 0) {
+                System.out.println("Converted " + this.recompressed + " chunks to " + this.codec.getName());
+            }
+            if (this.dropped > 0) {
+                System.out.println("Dropped " + this.dropped + " invalid chunk entries, these chunks were already unreadable");
+            }
+        }
+        return success;
+    }
+
+    private void compact(Path file) throws IOException {
+        List<Chunk> chunks = new ArrayList<>();
+        int[] timestamps = new int[1024];
+        int dropped = 0;
+        int recompressed = 0;
+        long sizeBefore;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            sizeBefore = channel.size();
+            if (sizeBefore < HEADER_BYTES) {
+                return; // Empty or truncated, vanilla recreates the header
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            readFully(channel, header, 0);
+            header.flip();
+
+            long sectors = sizeBefore / SECTOR_BYTES;
+            for (int i = 0; i < 1024; i++) {
+                int offset = header.getInt(i * 4);
+                timestamps[i] = header.getInt(SECTOR_BYTES + i * 4);
+                if (offset == 0) {
+                    continue;
+                }
+
+                int sector = offset >>> 8;
+                int count = offset & 0xFF;
+                if (sector < 2 || count == 0 || sector + count > sectors) {
+                    dropped++;
+                    continue;
+                }
+
+                ByteBuffer data = ByteBuffer.allocate(count * SECTOR_BYTES);
+                readFully(channel, data, (long) sector * SECTOR_BYTES);
+                int length = data.getInt(0);
+                if (length <= 1 || length > count * SECTOR_BYTES - 4) {
+                    dropped++;
+                    continue;
+                }
+
+                // Compression type and compressed data
+                byte[] payload = new byte[length];
+                data.position(4);
+                data.get(payload);
+                byte[] converted = recompress(file, i, payload);
+                if (converted != payload) {
+                    recompressed++;
+                }
+                chunks.add(new Chunk(i & 31, i >> 5, sector, converted));
+            }
+        }
+
+        // Z-order, so chunks close to each other in the world are close to each other in the file
+        chunks.sort(Comparator.comparingInt(chunk -> interleave(chunk.x) | interleave(chunk.z) << 1));
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        int sector = HEADER_BYTES / SECTOR_BYTES;
+        boolean moved = false;
+        for (Chunk chunk : chunks) {
+            int index = chunk.x + chunk.z * 32;
+            moved |= chunk.sector != sector;
+            chunk.sector = sector;
+            header.putInt(index * 4, sector << 8 | chunk.getSectors());
+            header.putInt(SECTOR_BYTES + index * 4, timestamps[index]);
+            sector += chunk.getSectors();
+        }
+        long sizeAfter = (long) sector * SECTOR_BYTES;
+
+        boolean changed = moved || recompressed > 0 || dropped > 0 || sizeAfter != sizeBefore;
+        if (!this.dryRun && changed) {
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            try {
+                try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                        StandardOpenOption.WRITE)) {
+                    writeFully(channel, header, 0);
+                    for (Chunk chunk : chunks) {
+                        ByteBuffer data = ByteBuffer.allocate(chunk.getSectors() * SECTOR_BYTES);
+                        data.putInt(chunk.payload.length);
+                        data.put(chunk.payload);
+                        data.clear();
+                        writeFully(channel, data, (long) chunk.sector * SECTOR_BYTES);
+                    }
+                    channel.force(true);
+                }
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException | RuntimeException e) {
+                // The region file is unchanged, don't leave the partially written copy behind
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+                throw e;
+            }
+        }
+
+        synchronized (this) {
+            this.regions++;
+            this.chunks += chunks.size();
+            this.recompressed += recompressed;
+            this.dropped += dropped;
+            this.sizeBefore += sizeBefore;
+            this.sizeAfter += sizeAfter;
+        }
+    }
+
+    // Returns the new payload (compression type and data) of the chunk, or the same array if it is unchanged
+    private byte[] recompress(Path file, int index, byte[] payload) throws IOException {
+        if (this.codec == null || payload[0] == this.codec.getId()) {
+            return payload;
+        }
+
+        RegionCodec source = RegionCodecs.get(payload[0]);
+        if (source == null) {
+            System.err.println("Unknown compression type " + payload[0] + " of chunk " + index + " in " + file + ", keeping it unchanged");
+            return payload;
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length * 2);
+        out.write(this.codec.getId());
+        try (InputStream in = source.decompress(new ByteArrayInputStream(payload, 1, payload.length - 1));
+                OutputStream target = this.codec.compress(out)) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                target.write(buffer, 0, read);
+            }
+        }
+
+        byte[] result = out.toByteArray();
+        if ((result.length + 4 + SECTOR_BYTES - 1) / SECTOR_BYTES > MAX_SECTORS) {
+            return payload; // Wouldn't fit into a region file anymore
+        }
+        return result;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of file");
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    // Spreads the 5 bits of a region-local coordinate to every other bit
+    private static int interleave(int value) {
+        value = (value | value << 4) & 0x0F0F;
+        value = (value | value << 2) & 0x3333;
+        value = (value | value << 1) & 0x5555;
+        return value;
+    }
+
+    private static String formatBytes(long bytes) {
+        return String.format("%.1f MiB", bytes / (1024.0 * 1024.0));
+    }
+
+    private static final class Chunk {
+
+        final int x;
+        final int z;
+        final byte[] payload;
+        int sector;
+
+        Chunk(int x, int z, int sector, byte[] payload) {
+            this.x = x;
+            this.z = z;
+            this.sector = sector;
+            this.payload = payload;
+        }
+
+        int getSectors() {
+            return (this.payload.length + 4 + SECTOR_BYTES - 1) / SECTOR_BYTES;
+        }
+
+    }
+
+}
@@ -75,6 +75,13 @@ private VanillaCommandLine() {
             .withRequiredArg();
     public static final OptionSpec<Void> BONUS_CHEST = parser.accepts("bonusChest", "Spawn a bonus chest in the generated world");
 
+    // Offline region compaction
+    public static final OptionSpec<File> COMPACT_REGIONS = parser.accepts("compact-regions",
+            "Compact the region files in the given directory and exit, without starting the server").withRequiredArg().ofType(File.class);
+    public static final OptionSpec<String> RECOMPRESS = parser.accepts("recompress",
+            "Convert the chunks to the given compression (e.g. zlib or lz4) while compacting").withRequiredArg();
+    public static final OptionSpec<Void> DRY_RUN = parser.accepts("dry-run", "Only report the space compacting would save");
+
     private static Optional<OptionSet> options = Optional.empty();
 
     static {
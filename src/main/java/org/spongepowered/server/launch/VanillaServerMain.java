@@ -24,9 +24,12 @@
  */
 package org.spongepowered.server.launch;
 
+import static org.spongepowered.server.launch.VanillaCommandLine.COMPACT_REGIONS;
+import static org.spongepowered.server.launch.VanillaCommandLine.DRY_RUN;
 import static org.spongepowered.server.launch.VanillaCommandLine.HELP;
 import static org.spongepowered.server.launch.VanillaCommandLine.NO_DOWNLOAD;
 import static org.spongepowered.server.launch.VanillaCommandLine.NO_VERIFY_CLASSPATH;
+import static org.spongepowered.server.launch.VanillaCommandLine.RECOMPRESS;
 import static org.spongepowered.server.launch.VanillaCommandLine.TWEAK_CLASS;
 import static org.spongepowered.server.launch.VanillaCommandLine.VERSION;
 
@@ -38,6 +41,8 @@
 import net.minecraft.launchwrapper.Launch;
 import org.jline.terminal.Terminal;
 import org.jline.terminal.TerminalBuilder;
+import org.spongepowered.server.world.chunkio.RegionCodec;
+import org.spongepowered.server.world.chunkio.RegionCodecs;
 
 import java.io.BufferedInputStream;
 import java.io.IOException;
@@ -94,6 +99,10 @@ public static void main(String[] args) throws Exception {
             System.out.println(pack.getImplementationTitle() + ' ' + pack.getImplementationVersion());
             System.out.println(pack.getSpecificationTitle() + ' ' + pack.getSpecificationVersion());
             return;
+        } else if (options.has(COMPACT_REGIONS)) {
+            // Only needs our own classes, so no need to download or verify anything
+            System.exit(compactRegions(options) ? 0 : 1);
+            return;
         }
 
         // Download/verify Minecraft server installation if necessary and not disabled
@@ -126,6 +135,21 @@ public static void main(String[] args) throws Exception {
         Launch.main(getLaunchArguments(TWEAKER, options.valuesOf(TWEAK_CLASS)));
     }
 
+    private static boolean compactRegions(OptionSet options) throws IOException {
+        RegionCodec codec = null;
+        if (options.has(RECOMPRESS)) {
+            String name = options.valueOf(RECOMPRESS);
+            codec = RegionCodecs.get(name).orElse(null);
+            if (codec == null) {
+                System.err.println("Unknown compression: " + name);
+                return false;
+            }
+        }
+
+        return new RegionCompactor(codec, options.has(DRY_RUN)).run(options.valueOf(COMPACT_REGIONS).toPath(),
+                Runtime.getRuntime().availableProcessors());
+    }
+
     private static String[] getLaunchArguments(String primaryTweaker, List<String> tweakers) {
         if (tweakers.isEmpty()) {
             return new String[]{TWEAK_ARGUMENT, primaryTweaker};
@@ -153,6 +153,7 @@ static void configureMixinEnvironment() {
         Mixins.addConfiguration("mixins.vanilla.entityactivation.json");
         Mixins.addConfiguration("mixins.vanilla.chunkio.json");
         Mixins.addConfiguration("mixins.vanilla.optimization.json");
+        Mixins.addConfiguration("mixins.vanilla.tracker.json");
 
         MixinEnvironment.getDefaultEnvironment().setSide(SERVER);
 
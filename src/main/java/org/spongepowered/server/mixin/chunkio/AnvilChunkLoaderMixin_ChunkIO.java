@@ -26,6 +26,7 @@
 
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.nbt.NBTTagList;
+import net.minecraft.util.math.ChunkPos;
 import net.minecraft.world.World;
 import net.minecraft.world.chunk.Chunk;
 import net.minecraft.world.chunk.storage.AnvilChunkLoader;
@@ -36,14 +37,89 @@
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.Surrogate;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 import org.spongepowered.asm.mixin.injection.callback.LocalCapture;
+import org.spongepowered.server.bridge.world.chunkio.AnvilChunkLoaderBridge_Vanilla;
+import org.spongepowered.server.mixin.core.world.chunk.storage.AnvilChunkLoaderAccessor_Vanilla;
+import org.spongepowered.server.world.chunkio.AsyncAnvilChunkSaver;
+import org.spongepowered.server.world.chunkio.ChunkIOSettings;
+import org.spongepowered.server.world.chunkio.ChunkNBTCache;
+import org.spongepowered.server.world.chunkio.ChunkSaveFilter;
 
 import javax.annotation.Nullable;
 import java.io.IOException;
 
 @Mixin(AnvilChunkLoader.class)
-public abstract class AnvilChunkLoaderMixin_ChunkIO {
+public abstract class AnvilChunkLoaderMixin_ChunkIO implements AnvilChunkLoaderBridge_Vanilla {
+
+    @Nullable private AsyncAnvilChunkSaver chunkIO$saver;
+    @Nullable private ChunkNBTCache chunkIO$cache;
+    @Nullable private ChunkSaveFilter chunkIO$saveFilter;
+
+    @Inject(method = "<init>", at = @At("RETURN"))
+    private void chunkIO$createChunkSaver(CallbackInfo ci) {
+        final AnvilChunkLoaderAccessor_Vanilla accessor = (AnvilChunkLoaderAccessor_Vanilla) this;
+        this.chunkIO$cache = new ChunkNBTCache(ChunkIOSettings.CACHE_BYTES);
+        this.chunkIO$saveFilter = new ChunkSaveFilter(ChunkIOSettings.SAVE_FILTER_ENTRIES);
+        this.chunkIO$saver = new AsyncAnvilChunkSaver(accessor.accessor$getChunkSaveLocation(), accessor.accessor$getChunksToSave(),
+                this.chunkIO$cache, this.chunkIO$saveFilter);
+    }
+
+    @SuppressWarnings("ConstantConditions")
+    @Override
+    public AsyncAnvilChunkSaver vanillaBridge$getChunkSaver() {
+        return this.chunkIO$saver;
+    }
+
+    @SuppressWarnings("ConstantConditions")
+    @Override
+    public ChunkNBTCache vanillaBridge$getChunkCache() {
+        return this.chunkIO$cache;
+    }
+
+    @SuppressWarnings("ConstantConditions")
+    @Override
+    public ChunkSaveFilter vanillaBridge$getSaveFilter() {
+        return this.chunkIO$saveFilter;
+    }
+
+    @Inject(method = "writeChunkData", at = @At("HEAD"), cancellable = true)
+    private void chunkIO$skipUnchangedChunk(ChunkPos pos, NBTTagCompound compound, CallbackInfo ci) {
+        if (this.chunkIO$saveFilter.isUnchanged(pos, compound)) {
+            ci.cancel();
+        }
+    }
+
+    @Inject(method = "writeChunkData", at = @At("RETURN"))
+    private void chunkIO$cacheWrittenChunk(ChunkPos pos, NBTTagCompound compound, CallbackInfo ci) {
+        // Called on the file I/O thread if the async chunk saver is disabled
+        this.chunkIO$cache.put(pos, compound);
+        this.chunkIO$saveFilter.written(pos, compound);
+    }
+
+    @Inject(method = "addChunkToPending", at = @At("HEAD"), cancellable = true)
+    private void chunkIO$queueAsyncSave(ChunkPos pos, NBTTagCompound compound, CallbackInfo ci) {
+        if (ChunkIOSettings.ASYNC_SAVES) {
+            this.chunkIO$saver.queue(pos, compound);
+            ci.cancel();
+        }
+    }
+
+    @Inject(method = "isChunkGeneratedAt", at = @At("RETURN"), cancellable = true)
+    private void chunkIO$checkAsyncSaves(int x, int z, CallbackInfoReturnable<Boolean> cir) {
+        // New chunks are only visible in the region file once the chunk saver has finished writing them
+        if (ChunkIOSettings.ASYNC_SAVES && !cir.getReturnValueZ() && this.chunkIO$saver.getWriting(new ChunkPos(x, z)) != null) {
+            cir.setReturnValue(true);
+        }
+    }
+
+    @Inject(method = "flush", at = @At("HEAD"))
+    private void chunkIO$flushAsyncSaves(CallbackInfo ci) {
+        if (ChunkIOSettings.ASYNC_SAVES) {
+            this.chunkIO$saver.flush();
+        }
+    }
 
     /**
      * @author Minecrell - May 28th, 2016
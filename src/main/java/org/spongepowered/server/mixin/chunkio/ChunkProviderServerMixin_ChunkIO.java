@@ -79,6 +79,11 @@ public Chunk loadChunk(int x, int z) {
         }
     }
 
+    @Override
+    public void vanillaBridge$prefetchChunk(int x, int z, Consumer<Chunk> callback) {
+        ChunkIOExecutor.queueChunkPrefetch(this.world, (AnvilChunkLoader) this.chunkLoader, (ChunkProviderServer) (Object) this, x, z, callback);
+    }
+
     /**
      * @author Minecrell - October 25th, 2016
      * @reason Overwrite method in SpongeCommon to load chunks using the chunk IO executor
@@ -28,6 +28,8 @@
 import net.minecraftforge.common.chunkio.ChunkIOExecutor;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.server.bridge.ChunkLoaderTickBridge;
+import org.spongepowered.server.world.chunkio.AsyncChunkGenerator;
+import org.spongepowered.server.world.chunkio.ChunkPregenerator;
 
 @Mixin(value = MinecraftServer.class, priority = 1112)
 public abstract class MinecraftServerMixin_ChunkIO implements ChunkLoaderTickBridge {
@@ -39,6 +41,8 @@ public abstract class MinecraftServerMixin_ChunkIO implements ChunkLoaderTickBri
     @Override
     public void chunkIO$tickChunkLoader() {
         ChunkIOExecutor.tick();
+        AsyncChunkGenerator.tick();
+        ChunkPregenerator.tick();
     }
 
 }
@@ -0,0 +1,65 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.server.mixin.chunkio;
+
+import net.minecraft.server.management.PlayerChunkMap;
+import net.minecraft.world.WorldServer;
+import net.minecraftforge.common.chunkio.ChunkIOExecutor;
+import org.spongepowered.asm.mixin.Final;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import org.spongepowered.server.world.chunkio.ChunkIOSettings;
+import org.spongepowered.server.world.chunkio.ChunkPrefetcher;
+
+import javax.annotation.Nullable;
+
+@Mixin(PlayerChunkMap.class)
+public abstract class PlayerChunkMapMixin_ChunkIO {
+
+    @Shadow @Final private WorldServer world;
+    @Shadow private int playerViewRadius;
+
+    @Nullable private ChunkPrefetcher chunkIO$prefetcher;
+
+    // Called when players join, leave or cross a chunk border and the missing chunks should be re-sorted
+    @Inject(method = "markSortPending", at = @At("HEAD"))
+    private void chunkIO$onMarkSortPending(CallbackInfo ci) {
+        ChunkIOExecutor.markPrioritiesDirty();
+    }
+
+    @Inject(method = "tick", at = @At("HEAD"))
+    private void chunkIO$prefetchChunks(CallbackInfo ci) {
+        if (ChunkIOSettings.PREFETCH) {
+            if (this.chunkIO$prefetcher == null) {
+                this.chunkIO$prefetcher = new ChunkPrefetcher(this.world, (PlayerChunkMap) (Object) this);
+            }
+            this.chunkIO$prefetcher.tick(this.playerViewRadius);
+        }
+    }
+
+}
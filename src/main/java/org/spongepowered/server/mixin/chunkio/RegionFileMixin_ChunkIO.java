@@ -0,0 +1,130 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.server.mixin.chunkio;
+
+import net.minecraft.world.chunk.storage.RegionFile;
+import org.spongepowered.asm.mixin.Final;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Overwrite;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.ModifyArg;
+import org.spongepowered.server.bridge.world.chunkio.RegionFileBridge_Vanilla;
+import org.spongepowered.server.world.chunkio.RegionCodecs;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+@Mixin(RegionFile.class)
+public abstract class RegionFileMixin_ChunkIO implements RegionFileBridge_Vanilla {
+
+    @Shadow private RandomAccessFile dataFile;
+    @Shadow @Final private List<Boolean> sectorFree;
+
+    @Shadow protected abstract boolean outOfBounds(int x, int z);
+    @Shadow protected abstract int getOffset(int x, int z);
+    @Shadow protected abstract void write(int x, int z, byte[] data, int length);
+
+    private int chunkIO$compression = RegionCodecs.ZLIB.getId(); // Guarded by this
+
+    /**
+     * @author agent - October 18th, 2026
+     * @reason Select the codec by the compression type instead of only
+     *     supporting gzip and zlib
+     */
+    @Nullable
+    @Overwrite
+    public synchronized DataInputStream getChunkDataInputStream(int x, int z) {
+        if (this.outOfBounds(x, z)) {
+            return null;
+        }
+
+        try {
+            int offset = this.getOffset(x, z);
+            if (offset == 0) {
+                return null;
+            }
+
+            int sector = offset >> 8;
+            int sectors = offset & 255;
+            if (sector + sectors > this.sectorFree.size()) {
+                return null;
+            }
+
+            this.dataFile.seek(sector * 4096L);
+            int length = this.dataFile.readInt();
+            if (length > 4096 * sectors || length <= 0) {
+                return null;
+            }
+
+            int compression = this.dataFile.readByte();
+            byte[] data = new byte[length - 1];
+            this.dataFile.readFully(data);
+            return RegionCodecs.decompress(compression, new ByteArrayInputStream(data));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @author agent - October 18th, 2026
+     * @reason Compress new chunks with the configured codec
+     */
+    @Nullable
+    @Overwrite
+    public DataOutputStream getChunkDataOutputStream(int x, int z) {
+        if (this.outOfBounds(x, z)) {
+            return null;
+        }
+
+        try {
+            return RegionCodecs.compress((RegionFile) (Object) this, x, z);
+        } catch (IOException e) {
+            return null; // Same as an invalid position, only possible for codecs writing a header
+        }
+    }
+
+    @Override
+    public synchronized void vanillaBridge$write(int x, int z, byte[] data, int length, int compression) {
+        this.chunkIO$compression = compression;
+        try {
+            this.write(x, z, data, length);
+        } finally {
+            this.chunkIO$compression = RegionCodecs.ZLIB.getId();
+        }
+    }
+
+    @ModifyArg(method = "write(I[BI)V", at = @At(value = "INVOKE", target = "Ljava/io/RandomAccessFile;writeByte(I)V"))
+    private int chunkIO$writeCompressionType(int compression) {
+        return this.chunkIO$compression;
+    }
+
+}
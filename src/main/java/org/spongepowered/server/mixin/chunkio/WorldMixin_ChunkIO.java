@@ -25,12 +25,14 @@
 package org.spongepowered.server.mixin.chunkio;
 
 import net.minecraft.world.chunk.IChunkProvider;
+import net.minecraft.world.gen.ChunkProviderServer;
 import org.spongepowered.api.world.Chunk;
 import org.spongepowered.api.world.World;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Shadow;
 import org.spongepowered.common.world.storage.SpongeChunkLayout;
 import org.spongepowered.server.bridge.world.chunkio.ChunkIOProviderBridge_Vanilla;
+import org.spongepowered.server.world.chunkio.AsyncChunkGenerator;
 
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
@@ -42,15 +44,19 @@ public abstract class WorldMixin_ChunkIO implements World {
 
     @Override
     public CompletableFuture<Optional<Chunk>> loadChunkAsync(int cx, int cy, int cz, boolean shouldGenerate) {
-        // Currently, we can only load asynchronously if the chunk should not be generated
-        if (shouldGenerate) {
-            return World.super.loadChunkAsync(cx, cy, cz, true);
-        }
-
         if (!SpongeChunkLayout.instance.isValidChunk(cx, cy, cz)) {
             return CompletableFuture.completedFuture(Optional.empty());
         }
 
+        if (shouldGenerate) {
+            if (!(this.chunkProvider instanceof ChunkProviderServer)) {
+                return World.super.loadChunkAsync(cx, cy, cz, true);
+            }
+
+            return AsyncChunkGenerator.loadOrGenerate((ChunkProviderServer) this.chunkProvider, cx, cz)
+                    .thenApply(chunk -> Optional.of((Chunk) chunk));
+        }
+
         CompletableFuture<Optional<Chunk>> future = new CompletableFuture<>();
         ((ChunkIOProviderBridge_Vanilla) this.chunkProvider).vanillaBridge$loadChunk(cx, cz,
                 chunk -> future.complete(Optional.ofNullable((Chunk) chunk)));
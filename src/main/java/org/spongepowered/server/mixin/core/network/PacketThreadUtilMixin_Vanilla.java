@@ -0,0 +1,51 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.server.mixin.core.network;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import net.minecraft.network.PacketThreadUtil;
+import net.minecraft.util.IThreadListener;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Redirect;
+import org.spongepowered.server.bridge.server.MinecraftServerBridge_Vanilla;
+import org.spongepowered.server.tick.TaskPriority;
+
+import java.util.concurrent.Executors;
+
+@Mixin(PacketThreadUtil.class)
+public abstract class PacketThreadUtilMixin_Vanilla {
+
+    // Packets are handled before other tasks scheduled on the main thread
+    @Redirect(method = "checkThreadAndEnqueue", at = @At(value = "INVOKE",
+            target = "Lnet/minecraft/util/IThreadListener;addScheduledTask(Ljava/lang/Runnable;)Lcom/google/common/util/concurrent/ListenableFuture;"))
+    private static ListenableFuture<Object> vanilla$schedulePacket(IThreadListener listener, Runnable task) {
+        if (listener instanceof MinecraftServerBridge_Vanilla) {
+            return ((MinecraftServerBridge_Vanilla) listener).vanillaBridge$callFromMainThread(Executors.callable(task), TaskPriority.PACKETS);
+        }
+        return listener.addScheduledTask(task);
+    }
+
+}
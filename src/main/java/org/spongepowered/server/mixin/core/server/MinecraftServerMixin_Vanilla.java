@@ -24,6 +24,8 @@
  */
 package org.spongepowered.server.mixin.core.server;
 
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.objects.ObjectIterator;
@@ -41,6 +43,7 @@
 import net.minecraft.util.Util;
 import net.minecraft.util.text.ITextComponent;
 import net.minecraft.world.WorldServer;
+import org.apache.commons.lang3.Validate;
 import org.apache.logging.log4j.Logger;
 import org.spongepowered.asm.mixin.Final;
 import org.spongepowered.asm.mixin.Mixin;
@@ -57,9 +60,20 @@
 import org.spongepowered.common.world.WorldManager;
 import org.spongepowered.server.SpongeVanilla;
 import org.spongepowered.server.bridge.ChunkLoaderTickBridge;
+import org.spongepowered.server.bridge.server.MinecraftServerBridge_Vanilla;
+import org.spongepowered.server.tick.MainThreadTaskQueue;
+import org.spongepowered.server.tick.ServerHibernation;
+import org.spongepowered.server.tick.TaskPriority;
+import org.spongepowered.server.tick.TickPhase;
+import org.spongepowered.server.tick.TickSettings;
+import org.spongepowered.server.tick.TickTimings;
+import org.spongepowered.server.world.chunkio.AsyncAnvilChunkSaver;
+import org.spongepowered.server.world.chunkio.ChunkGCScheduler;
+import org.spongepowered.server.world.chunkio.ChunkIOSettings;
 
 import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
@@ -67,7 +81,7 @@
 // SpongeCommon injects into updateTimeLightAndEntities, so we need to apply
 // our @Overwrite *before* SpongeCommon's mixin is applied, otherwise it will fail
 @Mixin(value = MinecraftServer.class, priority = 999)
-public abstract class MinecraftServerMixin_Vanilla implements MinecraftServerBridge, ChunkLoaderTickBridge {
+public abstract class MinecraftServerMixin_Vanilla implements MinecraftServerBridge, MinecraftServerBridge_Vanilla, ChunkLoaderTickBridge {
 
     @Shadow @Final private static Logger LOGGER;
     @Shadow @Final private Snooper usageSnooper;
@@ -75,6 +89,7 @@ public abstract class MinecraftServerMixin_Vanilla implements MinecraftServerBri
     @Shadow @Final public Profiler profiler;
     @Shadow private PlayerList playerList;
     @Shadow private int tickCounter;
+    @Shadow @Final public long[] tickTimeArray;
     @Shadow @Final protected Queue<FutureTask<?>> futureTaskQueue;
     @Shadow public WorldServer[] worlds;
 
@@ -82,11 +97,14 @@ public abstract class MinecraftServerMixin_Vanilla implements MinecraftServerBri
     @Shadow public abstract NetworkSystem getNetworkSystem();
     @Shadow public abstract void saveAllWorlds(boolean isSilent);
     @Shadow public abstract PlayerProfileCache getPlayerProfileCache();
+    @Shadow public abstract boolean isCallingFromMinecraftThread();
+    @Shadow public abstract boolean isServerStopped();
 
     @SuppressWarnings("NullableProblems") @com.google.inject.Inject private static SpongeVanilla vanilla$spongeVanilla;
     private boolean vanilla$skipServerStop = false;
 
     private final Int2ObjectMap<long[]> vanilla$worldTickTimes = new Int2ObjectOpenHashMap<>(3);
+    private final MainThreadTaskQueue vanilla$taskQueue = new MainThreadTaskQueue();
 
     /**
      * @author Minecrell
@@ -157,6 +175,11 @@ public void stopServer() {
 
             this.saveAllWorlds(false);
 
+            // Sponge: Wait until the chunks queued above have been written
+            if (ChunkIOSettings.ASYNC_SAVES) {
+                AsyncAnvilChunkSaver.flushAll();
+            }
+
             for (WorldServer worldserver1 : this.worlds) {
                 if (worldserver1 != null) {
                     // Turn off Async Lighting
@@ -207,6 +230,36 @@ public void stopServer() {
         this.vanilla$worldTickTimes.remove(dimensionId);
     }
 
+    /**
+     * @author agent - October 18th, 2026
+     * @reason Queues the task in the lock-free main thread task queue
+     *     instead of the synchronized future task queue
+     */
+    @Overwrite
+    public <V> ListenableFuture<V> callFromMainThread(Callable<V> callable) {
+        return vanillaBridge$callFromMainThread(callable, TaskPriority.TASKS);
+    }
+
+    @Override
+    public <V> ListenableFuture<V> vanillaBridge$callFromMainThread(Callable<V> callable, TaskPriority priority) {
+        Validate.notNull(callable);
+
+        if (!this.isCallingFromMinecraftThread() && !this.isServerStopped()) {
+            return this.vanilla$taskQueue.submit(callable, priority);
+        }
+
+        try {
+            return Futures.immediateFuture(callable.call());
+        } catch (Exception e) {
+            return Futures.immediateFailedCheckedFuture(e);
+        }
+    }
+
+    @Override
+    public MainThreadTaskQueue vanillaBridge$getTaskQueue() {
+        return this.vanilla$taskQueue;
+    }
+
     /**
      * @author Zidane
      * @reason Handles ticking the additional worlds loaded by Sponge.
@@ -214,16 +267,28 @@ public void stopServer() {
     @Overwrite
     public void updateTimeLightAndEntities() {
         this.profiler.startSection("jobs");
+        long phaseStart = System.nanoTime(); // Sponge
+
+        // Sponge start - Run the tasks scheduled on the main thread within the time budget
+        this.vanilla$taskQueue.drain(TickSettings.TASK_BUDGET_NANOS, LOGGER);
+        // Sponge end
 
+        // Tasks added to the future task queue directly
         synchronized (this.futureTaskQueue) {
             while (!this.futureTaskQueue.isEmpty()) {
                 Util.runTask(this.futureTaskQueue.poll(), LOGGER);
             }
         }
 
+        phaseStart = vanilla$recordPhase(TickPhase.JOBS, phaseStart); // Sponge
         this.profiler.endStartSection("levels");
         chunkIO$tickChunkLoader(); // Sponge: Tick chunk loader
 
+        // Sponge start - Pause the worlds while no players are online
+        ServerHibernation.tick((MinecraftServer) (Object) this);
+        final boolean tickWorlds = ServerHibernation.shouldTickWorlds(this.tickCounter);
+        // Sponge end
+
         // Sponge start - Iterate over all our dimensions
         for (final ObjectIterator<Int2ObjectMap.Entry<WorldServer>> it = WorldManager.worldsIterator(); it.hasNext();) {
             Int2ObjectMap.Entry<WorldServer> entry = it.next();
@@ -231,11 +296,12 @@ public void updateTimeLightAndEntities() {
             // Sponge end
             long i = System.nanoTime();
 
-            if (entry.getIntKey() == 0 || this.getAllowNether()) {
+            if (tickWorlds && (entry.getIntKey() == 0 || this.getAllowNether())) { // Sponge: Skip while hibernating
 
                 // Sponge start - copy from SpongeCommon MinecraftServerMixin_Vanilla
                 WorldServerBridge spongeWorld = (WorldServerBridge) worldServer;
-                if (spongeWorld.bridge$getChunkGCTickInterval() > 0) {
+                // The chunk GC scheduler spreads the GC over multiple ticks instead
+                if (spongeWorld.bridge$getChunkGCTickInterval() > 0 && !ChunkGCScheduler.isEnabled()) {
                     spongeWorld.bridge$doChunkGC();
                 }
                 // Sponge end
@@ -250,61 +316,105 @@ public void updateTimeLightAndEntities() {
                     this.profiler.endSection();
                 }
 
-                this.profiler.startSection("tick");
-
-                try {
-                    worldServer.tick();
-                } catch (Throwable throwable1) {
-                    CrashReport crashreport = CrashReport.makeCrashReport(throwable1, "Exception ticking world");
-                    worldServer.addWorldInfoToCrashReport(crashreport);
-                    throw new ReportedException(crashreport);
-                }
-
-                try {
-                    worldServer.updateEntities();
-                } catch (Throwable throwable) {
-                    CrashReport crashreport1 = CrashReport.makeCrashReport(throwable, "Exception ticking world entities");
-                    worldServer.addWorldInfoToCrashReport(crashreport1);
-                    throw new ReportedException(crashreport1);
-                }
-
-                this.profiler.endSection();
-                this.profiler.startSection("tracker");
-
-                // Sponge start - copy from SpongeCommon MinecraftServerMixin_Vanilla
-                if (spongeWorld.bridge$getChunkGCTickInterval() > 0) {
-                    worldServer.getChunkProvider().tick();
-                }
-                // Sponge end
-
-                worldServer.getEntityTracker().tick();
-                this.profiler.endSection();
+                this.vanilla$tickWorld(worldServer, spongeWorld); // Sponge
                 this.profiler.endSection();
             }
 
             // Sponge start - Write tick times to our custom map
-            this.vanilla$worldTickTimes.get(entry.getIntKey())[this.tickCounter % 100] = System.nanoTime() - i;
+            long tickTime = System.nanoTime() - i;
+            this.vanilla$worldTickTimes.get(entry.getIntKey())[this.tickCounter % 100] = tickTime;
+            if (tickWorlds && (entry.getIntKey() == 0 || this.getAllowNether())) {
+                TickTimings.recordWorld(worldServer, tickTime);
+            }
             // Sponge end
         }
 
+        // Sponge start - Incremental chunk GC and unloading
+        if (ChunkGCScheduler.isEnabled()) {
+            this.profiler.endStartSection("chunk_gc");
+            ChunkGCScheduler.tick(this.getAllowNether());
+        }
+        // Sponge end
+
         // Sponge start - Unload requested worlds
         this.profiler.endStartSection("dim_unloading");
         WorldManager.unloadQueuedWorlds();
         // Sponge end
 
+        phaseStart = vanilla$recordPhase(TickPhase.LEVELS, phaseStart); // Sponge
         this.profiler.endStartSection("connection");
         this.getNetworkSystem().networkTick();
+        phaseStart = vanilla$recordPhase(TickPhase.CONNECTION, phaseStart); // Sponge
         this.profiler.endStartSection("players");
         this.playerList.onTick();
+        phaseStart = vanilla$recordPhase(TickPhase.PLAYERS, phaseStart); // Sponge
         this.profiler.endStartSection("tickables");
 
         for (int k = 0; k < this.tickables.size(); ++k) {
             this.tickables.get(k).update();
         }
 
+        vanilla$recordPhase(TickPhase.TICKABLES, phaseStart); // Sponge
+        this.profiler.endSection();
+    }
+
+    // Records the time since the start of the phase, returns the start of the next phase
+    private static long vanilla$recordPhase(TickPhase phase, long start) {
+        long now = System.nanoTime();
+        TickTimings.recordPhase(phase, now - start);
+        return now;
+    }
+
+    @Inject(method = "tick", at = @At("RETURN"))
+    private void vanilla$recordTickTime(CallbackInfo ci) {
+        TickTimings.recordTick(this.tickTimeArray[this.tickCounter % 100]);
+    }
+
+    // Sponge: Extracted from updateTimeLightAndEntities to measure the phases of the world tick
+    private void vanilla$tickWorld(WorldServer worldServer, WorldServerBridge spongeWorld) {
+        this.profiler.startSection("tick");
+        long phaseStart = System.nanoTime();
+
+        try {
+            worldServer.tick();
+        } catch (Throwable throwable1) {
+            CrashReport crashreport = CrashReport.makeCrashReport(throwable1, "Exception ticking world");
+            worldServer.addWorldInfoToCrashReport(crashreport);
+            throw new ReportedException(crashreport);
+        }
+
+        phaseStart = vanilla$recordWorldPhase(worldServer, TickPhase.TICK, phaseStart);
+
+        try {
+            worldServer.updateEntities();
+        } catch (Throwable throwable) {
+            CrashReport crashreport1 = CrashReport.makeCrashReport(throwable, "Exception ticking world entities");
+            worldServer.addWorldInfoToCrashReport(crashreport1);
+            throw new ReportedException(crashreport1);
+        }
+
+        phaseStart = vanilla$recordWorldPhase(worldServer, TickPhase.ENTITIES, phaseStart);
+
+        this.profiler.endStartSection("tracker");
+
+        // Sponge start - copy from SpongeCommon MinecraftServerMixin_Vanilla
+        if (spongeWorld.bridge$getChunkGCTickInterval() > 0 && !ChunkGCScheduler.isEnabled()) {
+            worldServer.getChunkProvider().tick();
+        }
+        // Sponge end
+
+        worldServer.getEntityTracker().tick();
+        vanilla$recordWorldPhase(worldServer, TickPhase.TRACKER, phaseStart);
+
         this.profiler.endSection();
     }
 
+    private static long vanilla$recordWorldPhase(WorldServer worldServer, TickPhase phase, long start) {
+        long now = System.nanoTime();
+        TickTimings.recordWorldPhase(worldServer, phase, now - start);
+        return now;
+    }
+
     // This is used by asynchronous chunk loading to finish loading the chunks
     public void chunkIO$tickChunkLoader() {
     }
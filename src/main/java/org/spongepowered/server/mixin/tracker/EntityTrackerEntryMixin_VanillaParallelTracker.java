@@ -0,0 +1,97 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.server.mixin.tracker;
+
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.EntityTrackerEntry;
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.network.NetHandlerPlayServer;
+import net.minecraft.network.Packet;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Redirect;
+import org.spongepowered.server.tick.ParallelEntityTracker;
+
+// Records the changes to the players while the entries are updated in parallel,
+// they are applied on the ticking thread afterwards
+@Mixin(EntityTrackerEntry.class)
+public abstract class EntityTrackerEntryMixin_VanillaParallelTracker {
+
+    @Redirect(method = {"updatePlayerList", "updatePlayerEntity", "sendToTracking", "sendToTrackingAndSelf"}, at = @At(value = "INVOKE",
+            target = "Lnet/minecraft/network/NetHandlerPlayServer;sendPacket(Lnet/minecraft/network/Packet;)V"))
+    private void vanilla$sendPacket(NetHandlerPlayServer connection, Packet<?> packet) {
+        ParallelEntityTracker.DeferredOutput output = ParallelEntityTracker.getOutput();
+        if (output != null) {
+            output.sendPacket(connection, packet);
+        } else {
+            connection.sendPacket(packet);
+        }
+    }
+
+    @Redirect(method = "updatePlayerEntity", at = @At(value = "INVOKE",
+            target = "Lnet/minecraft/entity/Entity;addTrackingPlayer(Lnet/minecraft/entity/player/EntityPlayerMP;)V"))
+    private void vanilla$addTrackingPlayer(Entity entity, EntityPlayerMP player) {
+        ParallelEntityTracker.DeferredOutput output = ParallelEntityTracker.getOutput();
+        if (output != null) {
+            output.addTrackingPlayer(entity, player);
+        } else {
+            entity.addTrackingPlayer(player);
+        }
+    }
+
+    @Redirect(method = "updatePlayerEntity", at = @At(value = "INVOKE",
+            target = "Lnet/minecraft/entity/Entity;removeTrackingPlayer(Lnet/minecraft/entity/player/EntityPlayerMP;)V"))
+    private void vanilla$removeTrackingPlayer(Entity entity, EntityPlayerMP player) {
+        ParallelEntityTracker.DeferredOutput output = ParallelEntityTracker.getOutput();
+        if (output != null) {
+            output.removeTrackingPlayer(entity, player);
+        } else {
+            entity.removeTrackingPlayer(player);
+        }
+    }
+
+    @Redirect(method = "updatePlayerEntity", at = @At(value = "INVOKE",
+            target = "Lnet/minecraft/entity/player/EntityPlayerMP;addEntity(Lnet/minecraft/entity/Entity;)V"))
+    private void vanilla$addEntity(EntityPlayerMP player, Entity entity) {
+        ParallelEntityTracker.DeferredOutput output = ParallelEntityTracker.getOutput();
+        if (output != null) {
+            output.addEntity(player, entity);
+        } else {
+            player.addEntity(entity);
+        }
+    }
+
+    @Redirect(method = "updatePlayerEntity", at = @At(value = "INVOKE",
+            target = "Lnet/minecraft/entity/player/EntityPlayerMP;removeEntity(Lnet/minecraft/entity/Entity;)V"))
+    private void vanilla$removeEntity(EntityPlayerMP player, Entity entity) {
+        ParallelEntityTracker.DeferredOutput output = ParallelEntityTracker.getOutput();
+        if (output != null) {
+            output.removeEntity(player, entity);
+        } else {
+            player.removeEntity(entity);
+        }
+    }
+
+}
@@ -0,0 +1,135 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.server.tick;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+import net.minecraft.util.Util;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * The queue of tasks scheduled on the main thread, replacing the
+ * synchronized future task queue of the server.
+ *
+ * <p>Tasks are added without locking from any thread, and run on the main
+ * thread at the start of each tick in the order of their
+ * {@link TaskPriority}. If {@link TickSettings#TASK_BUDGET_NANOS} is set,
+ * the tasks left over once the budget is exceeded are carried over to the
+ * next tick. At least one task of each priority runs every tick, so the
+ * lower priorities cannot be starved completely.</p>
+ */
+public final class MainThreadTaskQueue {
+
+    private static final TaskPriority[] PRIORITIES = TaskPriority.values();
+
+    @SuppressWarnings("unchecked")
+    private final Queue<QueuedTask>[] queues = new Queue[PRIORITIES.length];
+    private final AtomicIntegerArray pending = new AtomicIntegerArray(PRIORITIES.length);
+
+    public MainThreadTaskQueue() {
+        for (int i = 0; i < PRIORITIES.length; i++) {
+            this.queues[i] = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    /**
+     * Queues a task to run on the main thread. Can be called from any thread.
+     *
+     * @param callable The task
+     * @param priority The priority of the task
+     * @param <V> The result type of the task
+     * @return The future completed with the result of the task
+     */
+    public <V> ListenableFuture<V> submit(Callable<V> callable, TaskPriority priority) {
+        ListenableFutureTask<V> task = ListenableFutureTask.create(callable);
+        this.queues[priority.ordinal()].add(new QueuedTask(task, System.nanoTime()));
+        this.pending.incrementAndGet(priority.ordinal());
+        return task;
+    }
+
+    /**
+     * Returns the number of tasks waiting to run.
+     *
+     * @param priority The priority of the tasks
+     * @return The number of waiting tasks
+     */
+    public int getPending(TaskPriority priority) {
+        return this.pending.get(priority.ordinal());
+    }
+
+    /**
+     * Runs the queued tasks on the main thread.
+     *
+     * @param budgetNanos The time budget in nanoseconds, or 0 to run all
+     *     tasks including those added while running
+     * @param logger The logger for exceptions thrown by the tasks
+     */
+    public void drain(long budgetNanos, Logger logger) {
+        long deadline = System.nanoTime() + budgetNanos;
+
+        // Run at least one task of each priority
+        for (TaskPriority priority : PRIORITIES) {
+            runTask(priority, logger);
+        }
+
+        for (TaskPriority priority : PRIORITIES) {
+            while (budgetNanos <= 0 || System.nanoTime() - deadline < 0) {
+                if (!runTask(priority, logger)) {
+                    break;
+                }
+            }
+        }
+    }
+
+    private boolean runTask(TaskPriority priority, Logger logger) {
+        QueuedTask task = this.queues[priority.ordinal()].poll();
+        if (task == null) {
+            return false;
+        }
+
+        this.pending.decrementAndGet(priority.ordinal());
+        TickTimings.recordTaskLatency(priority, System.nanoTime() - task.queued);
+        Util.runTask(task.task, logger);
+        return true;
+    }
+
+    private static final class QueuedTask {
+
+        final ListenableFutureTask<?> task;
+        final long queued;
+
+        QueuedTask(ListenableFutureTask<?> task, long queued) {
+            this.task = task;
+            this.queued = queued;
+        }
+
+    }
+
+}
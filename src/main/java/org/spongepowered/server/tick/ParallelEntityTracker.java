@@ -0,0 +1,268 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.server.tick;
+
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.EntityTrackerEntry;
+import net.minecraft.entity.item.EntityItemFrame;
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.network.NetHandlerPlayServer;
+import net.minecraft.network.Packet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+import javax.annotation.Nullable;
+
+/**
+ * Updates the entries of an entity tracker in parallel.
+ *
+ * <p>The tracked entities are split into tasks of
+ * {@link TickSettings#TRACKER_TASK_SIZE} entries, which compute the
+ * visibility and the movement of the entities on a fork-join pool. All
+ * changes affecting the players (packets, the entities tracked by a player
+ * and {@link Entity#addTrackingPlayer(EntityPlayerMP)}) are recorded in a
+ * {@link DeferredOutput} instead, and replayed on the ticking thread in the
+ * order of the entries once all tasks have finished. This way, each
+ * connection receives its packets in the same order as with the serial
+ * tracker, independent of the thread scheduling.</p>
+ *
+ * <p>Item frames update the shared map data, so they are still updated
+ * when the output is replayed.</p>
+ */
+public final class ParallelEntityTracker {
+
+    private static final ThreadLocal<DeferredOutput> currentOutput = new ThreadLocal<>();
+    @Nullable private static volatile ForkJoinPool pool;
+
+    private ParallelEntityTracker() {
+    }
+
+    /**
+     * Returns the output changes to the players should be recorded in.
+     *
+     * @return The output, or null if called outside of a parallel update
+     */
+    @Nullable
+    public static DeferredOutput getOutput() {
+        return currentOutput.get();
+    }
+
+    /**
+     * Updates the tracker entries in parallel, equivalent to
+     * {@link net.minecraft.entity.EntityTracker#tick()}.
+     *
+     * @param entries The entries of the tracker
+     * @param players The players in the world
+     * @return False if there are too few entries to update them in
+     *     parallel, the caller should update them serially
+     */
+    public static boolean tick(Collection<EntityTrackerEntry> entries, List<EntityPlayer> players) {
+        if (entries.size() < 2 * TickSettings.TRACKER_TASK_SIZE) {
+            return false;
+        }
+
+        EntityTrackerEntry[] snapshot = entries.toArray(new EntityTrackerEntry[0]);
+        update(snapshot, (entry, output) -> {
+            if (entry.getTrackedEntity() instanceof EntityItemFrame) {
+                output.add(DeferredOutput.UPDATE_PLAYER_LIST, entry, players);
+            } else {
+                entry.updatePlayerList(players);
+            }
+        });
+
+        List<EntityPlayerMP> updatedPlayers = new ArrayList<>();
+        for (EntityTrackerEntry entry : snapshot) {
+            if (entry.playerEntitiesUpdated && entry.getTrackedEntity() instanceof EntityPlayerMP) {
+                updatedPlayers.add((EntityPlayerMP) entry.getTrackedEntity());
+            }
+        }
+
+        if (!updatedPlayers.isEmpty()) {
+            // Each player only receives packets for its own updates, so iterating the entries
+            // first results in the same order for each connection as iterating the players first
+            update(snapshot, (entry, output) -> {
+                for (EntityPlayerMP player : updatedPlayers) {
+                    if (entry.getTrackedEntity() != player) {
+                        entry.updatePlayerEntity(player);
+                    }
+                }
+            });
+        }
+
+        return true;
+    }
+
+    private static void update(EntityTrackerEntry[] entries, BiConsumer<EntityTrackerEntry, DeferredOutput> update) {
+        int taskSize = TickSettings.TRACKER_TASK_SIZE;
+        int tasks = (entries.length + taskSize - 1) / taskSize;
+
+        ForkJoinPool pool = getPool();
+        List<ForkJoinTask<DeferredOutput>> futures = new ArrayList<>(tasks - 1);
+        for (int i = 1; i < tasks; i++) {
+            int start = i * taskSize;
+            int end = Math.min(start + taskSize, entries.length);
+            futures.add(pool.submit(() -> update(entries, start, end, update)));
+        }
+
+        // Update the first entries on this thread while waiting for the others
+        update(entries, 0, Math.min(taskSize, entries.length), update).replay();
+        for (ForkJoinTask<DeferredOutput> future : futures) {
+            future.join().replay();
+        }
+    }
+
+    private static DeferredOutput update(EntityTrackerEntry[] entries, int start, int end,
+            BiConsumer<EntityTrackerEntry, DeferredOutput> update) {
+        DeferredOutput output = new DeferredOutput();
+        currentOutput.set(output);
+        try {
+            for (int i = start; i < end; i++) {
+                update.accept(entries[i], output);
+            }
+        } finally {
+            currentOutput.remove();
+        }
+        return output;
+    }
+
+    private static ForkJoinPool getPool() {
+        ForkJoinPool pool = ParallelEntityTracker.pool;
+        if (pool == null) {
+            synchronized (ParallelEntityTracker.class) {
+                pool = ParallelEntityTracker.pool;
+                if (pool == null) {
+                    pool = ParallelEntityTracker.pool = new ForkJoinPool(TickSettings.TRACKER_THREADS, TrackerThread::new, null, false);
+                }
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * The changes to the players recorded by a task, in the order they were
+     * made.
+     */
+    public static final class DeferredOutput {
+
+        static final byte SEND_PACKET = 0;
+        static final byte ADD_TRACKING_PLAYER = 1;
+        static final byte REMOVE_TRACKING_PLAYER = 2;
+        static final byte ADD_ENTITY = 3;
+        static final byte REMOVE_ENTITY = 4;
+        static final byte UPDATE_PLAYER_LIST = 5;
+
+        private byte[] types = new byte[64];
+        private Object[] arguments = new Object[128]; // Two for each change
+        private int size;
+
+        DeferredOutput() {
+        }
+
+        public void sendPacket(NetHandlerPlayServer connection, Packet<?> packet) {
+            add(SEND_PACKET, connection, packet);
+        }
+
+        public void addTrackingPlayer(Entity entity, EntityPlayerMP player) {
+            add(ADD_TRACKING_PLAYER, entity, player);
+        }
+
+        public void removeTrackingPlayer(Entity entity, EntityPlayerMP player) {
+            add(REMOVE_TRACKING_PLAYER, entity, player);
+        }
+
+        public void addEntity(EntityPlayerMP player, Entity entity) {
+            add(ADD_ENTITY, player, entity);
+        }
+
+        public void removeEntity(EntityPlayerMP player, Entity entity) {
+            add(REMOVE_ENTITY, player, entity);
+        }
+
+        void add(byte type, Object first, Object second) {
+            if (this.size == this.types.length) {
+                this.types = Arrays.copyOf(this.types, this.size * 2);
+                this.arguments = Arrays.copyOf(this.arguments, this.size * 4);
+            }
+
+            this.types[this.size] = type;
+            this.arguments[this.size * 2] = first;
+            this.arguments[this.size * 2 + 1] = second;
+            this.size++;
+        }
+
+        @SuppressWarnings("unchecked")
+        void replay() {
+            for (int i = 0; i < this.size; i++) {
+                Object first = this.arguments[i * 2];
+                Object second = this.arguments[i * 2 + 1];
+                switch (this.types[i]) {
+                    case SEND_PACKET:
+                        ((NetHandlerPlayServer) first).sendPacket((Packet<?>) second);
+                        break;
+                    case ADD_TRACKING_PLAYER:
+                        ((Entity) first).addTrackingPlayer((EntityPlayerMP) second);
+                        break;
+                    case REMOVE_TRACKING_PLAYER:
+                        ((Entity) first).removeTrackingPlayer((EntityPlayerMP) second);
+                        break;
+                    case ADD_ENTITY:
+                        ((EntityPlayerMP) first).addEntity((Entity) second);
+                        break;
+                    case REMOVE_ENTITY:
+                        ((EntityPlayerMP) first).removeEntity((Entity) second);
+                        break;
+                    case UPDATE_PLAYER_LIST:
+                        ((EntityTrackerEntry) first).updatePlayerList((List<EntityPlayer>) second);
+                        break;
+                    default:
+                        throw new AssertionError(this.types[i]);
+                }
+            }
+        }
+
+    }
+
+    private static final class TrackerThread extends ForkJoinWorkerThread {
+
+        private static final AtomicInteger threadId = new AtomicInteger();
+
+        TrackerThread(ForkJoinPool pool) {
+            super(pool);
+            setName("Entity Tracker Thread #" + threadId.getAndIncrement());
+            setDaemon(true);
+        }
+
+    }
+
+}
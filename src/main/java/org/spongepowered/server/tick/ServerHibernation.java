@@ -0,0 +1,140 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.server.tick;
+
+import net.minecraft.server.MinecraftServer;
+import org.spongepowered.api.Sponge;
+import org.spongepowered.api.event.CauseStackManager;
+import org.spongepowered.common.SpongeImpl;
+import org.spongepowered.server.world.chunkio.AsyncChunkGenerator;
+import org.spongepowered.server.world.chunkio.ChunkPregenerator;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pauses the worlds while no players are online.
+ *
+ * <p>Once the player list was empty for
+ * {@link TickSettings#HIBERNATE_AFTER_SECONDS}, the worlds are no longer
+ * ticked (or only every {@link TickSettings#HIBERNATE_WORLD_INTERVAL}
+ * ticks). The rest of the server tick continues, so the network, console
+ * commands, scheduled tasks and the scheduler keep running at the normal
+ * rate. The server wakes up as soon as a player connects or
+ * {@link #wakeUp()} is called, and stays awake while chunks are generated
+ * by the {@link ChunkPregenerator} or the {@link AsyncChunkGenerator}.</p>
+ *
+ * <p>A {@link ServerHibernationEvent} is fired on every transition.</p>
+ */
+public final class ServerHibernation {
+
+    private static final long HIBERNATE_AFTER_NANOS = TimeUnit.SECONDS.toNanos(TickSettings.HIBERNATE_AFTER_SECONDS);
+
+    private static volatile boolean wakeUpRequested;
+    private static boolean hibernating; // Main thread only
+    private static long lastActive = -1;
+
+    private ServerHibernation() {
+    }
+
+    public static boolean isEnabled() {
+        return HIBERNATE_AFTER_NANOS > 0;
+    }
+
+    /**
+     * Returns whether the server is currently hibernating.
+     *
+     * @return True if hibernating
+     */
+    public static boolean isHibernating() {
+        return hibernating;
+    }
+
+    /**
+     * Wakes up the server in the next tick and restarts the idle timer. Can
+     * be called from any thread, e.g. when a connection is opened.
+     */
+    public static void wakeUp() {
+        wakeUpRequested = true;
+    }
+
+    /**
+     * Updates the hibernation state. Called on the main thread at the start
+     * of each tick.
+     *
+     * @param server The server
+     */
+    public static void tick(MinecraftServer server) {
+        if (!isEnabled()) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        boolean active = server.getPlayerList().getCurrentPlayerCount() > 0 || isGeneratingChunks();
+        if (wakeUpRequested) {
+            wakeUpRequested = false;
+            active = true;
+        }
+
+        if (active || lastActive == -1) {
+            lastActive = now;
+        }
+
+        if (hibernating) {
+            if (active) {
+                hibernating = false;
+                SpongeImpl.getLogger().info("Waking up from hibernation");
+                post(server, false);
+            }
+        } else if (now - lastActive >= HIBERNATE_AFTER_NANOS) {
+            hibernating = true;
+            SpongeImpl.getLogger().info("No players online for {} seconds, hibernating", TickSettings.HIBERNATE_AFTER_SECONDS);
+            post(server, true);
+        }
+    }
+
+    /**
+     * Returns whether the worlds should be ticked in the current tick.
+     *
+     * @param tickCounter The current tick
+     * @return True if the worlds should be ticked
+     */
+    public static boolean shouldTickWorlds(int tickCounter) {
+        return !hibernating || (TickSettings.HIBERNATE_WORLD_INTERVAL > 0 && tickCounter % TickSettings.HIBERNATE_WORLD_INTERVAL == 0);
+    }
+
+    // The generated chunks are only unloaded by the world tick, so generation would stall at the loaded chunk limit
+    private static boolean isGeneratingChunks() {
+        return !ChunkPregenerator.getTasks().isEmpty() || AsyncChunkGenerator.getInFlight() > 0 || AsyncChunkGenerator.getQueued() > 0;
+    }
+
+    private static void post(MinecraftServer server, boolean start) {
+        try (CauseStackManager.StackFrame frame = Sponge.getCauseStackManager().pushCauseFrame()) {
+            frame.pushCause(server);
+            SpongeImpl.postEvent(start ? new ServerHibernationEvent.Start(frame.getCurrentCause())
+                    : new ServerHibernationEvent.Stop(frame.getCurrentCause()));
+        }
+    }
+
+}
@@ -0,0 +1,70 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.server.tick;
+
+import org.spongepowered.api.event.Event;
+import org.spongepowered.api.event.cause.Cause;
+
+/**
+ * Fired on the main thread when the server starts or stops hibernating,
+ * see {@link ServerHibernation}.
+ */
+public abstract class ServerHibernationEvent implements Event {
+
+    private final Cause cause;
+
+    ServerHibernationEvent(Cause cause) {
+        this.cause = cause;
+    }
+
+    @Override
+    public Cause getCause() {
+        return this.cause;
+    }
+
+    /**
+     * Fired when the server starts hibernating because no players were
+     * online for {@link TickSettings#HIBERNATE_AFTER_SECONDS}.
+     */
+    public static final class Start extends ServerHibernationEvent {
+
+        Start(Cause cause) {
+            super(cause);
+        }
+
+    }
+
+    /**
+     * Fired when the server wakes up, e.g. because a player is connecting.
+     */
+    public static final class Stop extends ServerHibernationEvent {
+
+        Stop(Cause cause) {
+            super(cause);
+        }
+
+    }
+
+}
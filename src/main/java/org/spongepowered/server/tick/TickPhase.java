@@ -0,0 +1,88 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.server.tick;
+
+/**
+ * The phases of a server tick measured by {@link TickTimings}.
+ */
+public enum TickPhase {
+
+    /**
+     * Running the tasks scheduled for the main thread.
+     */
+    JOBS(false),
+
+    /**
+     * Ticking all worlds, including chunk unloading and world unloading.
+     */
+    LEVELS(false),
+
+    /**
+     * The world tick (weather, block updates, chunk ticks, mob spawning).
+     */
+    TICK(true),
+
+    /**
+     * Updating the entities and tile entities of a world.
+     */
+    ENTITIES(true),
+
+    /**
+     * Unloading chunks and sending entity updates to the players.
+     */
+    TRACKER(true),
+
+    /**
+     * Processing the packets of all connections.
+     */
+    CONNECTION(false),
+
+    /**
+     * Updating the player list (ping and latency updates).
+     */
+    PLAYERS(false),
+
+    /**
+     * Running other tickables (e.g. the query and RCON threads).
+     */
+    TICKABLES(false);
+
+    private final boolean perWorld;
+
+    TickPhase(boolean perWorld) {
+        this.perWorld = perWorld;
+    }
+
+    /**
+     * Returns whether this phase is measured separately for each world. The
+     * server-wide time of these phases is the sum over all worlds.
+     *
+     * @return True if the phase is measured per world
+     */
+    public boolean isPerWorld() {
+        return this.perWorld;
+    }
+
+}
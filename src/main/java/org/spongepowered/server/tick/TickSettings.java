@@ -0,0 +1,78 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.server.tick;
+
+/**
+ * Tuning options for the server tick loop, read from system properties
+ * (e.g. {@code -Dsponge.tick.hibernate-after=300}) when the server starts.
+ */
+public final class TickSettings {
+
+    private static final String PREFIX = "sponge.tick.";
+
+    /**
+     * The time in nanoseconds the tasks scheduled on the main thread may run
+     * for in each tick, see {@link MainThreadTaskQueue}. 0 (the default)
+     * runs all tasks in the tick they were scheduled in.
+     */
+    public static final long TASK_BUDGET_NANOS = Math.max(0, Long.getLong(PREFIX + "task-budget-ns", 0));
+
+    /**
+     * The number of seconds without players online after which the server
+     * hibernates, see {@link ServerHibernation}. 0 (the default) disables
+     * hibernation.
+     */
+    public static final int HIBERNATE_AFTER_SECONDS = Math.max(0, Integer.getInteger(PREFIX + "hibernate-after", 0));
+
+    /**
+     * The interval in ticks the worlds are still ticked in while the server
+     * hibernates. 0 (the default) pauses the worlds completely.
+     */
+    public static final int HIBERNATE_WORLD_INTERVAL = Math.max(0, Integer.getInteger(PREFIX + "hibernate-world-interval", 0));
+
+    /**
+     * Whether the entity trackers update the tracked entities in parallel,
+     * see {@link ParallelEntityTracker}.
+     */
+    public static final boolean PARALLEL_TRACKER = Boolean.getBoolean(PREFIX + "parallel-tracker");
+
+    /**
+     * The number of threads updating the tracked entities if
+     * {@link #PARALLEL_TRACKER} is enabled. Defaults to the number of
+     * available processors.
+     */
+    public static final int TRACKER_THREADS = Math.max(1, Integer.getInteger(PREFIX + "tracker-threads", Runtime.getRuntime().availableProcessors()));
+
+    /**
+     * The number of tracked entities updated by a single task if
+     * {@link #PARALLEL_TRACKER} is enabled. Worlds with less than two tasks
+     * worth of entities are updated on the world thread.
+     */
+    public static final int TRACKER_TASK_SIZE = Math.max(1, Integer.getInteger(PREFIX + "tracker-task-size", 128));
+
+    private TickSettings() {
+    }
+
+}
@@ -0,0 +1,252 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.server.tick;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.collect.MapMaker;
+import net.minecraft.world.WorldServer;
+import org.spongepowered.server.util.LatencyHistogram;
+import org.spongepowered.server.util.SlidingLatencyHistogram;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Records the duration of server ticks, their phases and the tick of each
+ * world into sliding histograms, so the tail latency can be inspected over
+ * the last seconds or minutes.
+ *
+ * <p>All methods are thread-safe.</p>
+ */
+public final class TickTimings {
+
+    private static final long SLOT_NANOS = TimeUnit.SECONDS.toNanos(5);
+    private static final int SLOTS = 61; // Five minutes and the slot currently being filled
+
+    private static final TickPhase[] PHASES = TickPhase.values();
+
+    private static final SlidingLatencyHistogram ticks = new SlidingLatencyHistogram(SLOT_NANOS, SLOTS);
+    private static final SlidingLatencyHistogram[] phases = new SlidingLatencyHistogram[PHASES.length];
+    private static final AtomicLongArray worldPhaseTotals = new AtomicLongArray(PHASES.length); // Summed over all worlds during the current tick
+    private static final SlidingLatencyHistogram[] taskLatency = new SlidingLatencyHistogram[TaskPriority.values().length];
+    private static final Map<WorldServer, WorldTimings> worlds = new MapMaker().weakKeys().makeMap();
+
+    static {
+        for (int i = 0; i < PHASES.length; i++) {
+            phases[i] = new SlidingLatencyHistogram(SLOT_NANOS, SLOTS);
+        }
+        for (int i = 0; i < taskLatency.length; i++) {
+            taskLatency[i] = new SlidingLatencyHistogram(SLOT_NANOS, SLOTS);
+        }
+    }
+
+    /**
+     * The windows the tick times can be queried for.
+     */
+    public enum Window {
+        TEN_SECONDS(10),
+        ONE_MINUTE(60),
+        FIVE_MINUTES(300);
+
+        final long nanos;
+
+        Window(int seconds) {
+            this.nanos = TimeUnit.SECONDS.toNanos(seconds);
+        }
+    }
+
+    private TickTimings() {
+    }
+
+    /**
+     * Records the duration of a complete server tick. Called on the main
+     * thread at the end of each tick.
+     *
+     * @param nanos The duration of the tick in nanoseconds
+     */
+    public static void recordTick(long nanos) {
+        ticks.record(nanos);
+
+        for (TickPhase phase : PHASES) {
+            if (phase.isPerWorld()) {
+                phases[phase.ordinal()].record(worldPhaseTotals.getAndSet(phase.ordinal(), 0));
+            }
+        }
+    }
+
+    /**
+     * Records the duration of a server-wide phase.
+     *
+     * @param phase The phase, must not be a per world phase
+     * @param nanos The duration of the phase in nanoseconds
+     */
+    public static void recordPhase(TickPhase phase, long nanos) {
+        phases[phase.ordinal()].record(nanos);
+    }
+
+    /**
+     * Records the duration of the complete tick of a world.
+     *
+     * @param world The world
+     * @param nanos The duration of the world tick in nanoseconds
+     */
+    public static void recordWorld(WorldServer world, long nanos) {
+        getTimings(world).ticks.record(nanos);
+    }
+
+    /**
+     * Records the duration of a phase of a world tick.
+     *
+     * @param world The world
+     * @param phase The phase, must be a per world phase
+     * @param nanos The duration of the phase in nanoseconds
+     */
+    public static void recordWorldPhase(WorldServer world, TickPhase phase, long nanos) {
+        getTimings(world).phases[phase.ordinal()].record(nanos);
+        worldPhaseTotals.addAndGet(phase.ordinal(), nanos);
+    }
+
+    /**
+     * Records the time a task waited in the {@link MainThreadTaskQueue}
+     * until it started running.
+     *
+     * @param priority The priority of the task
+     * @param nanos The time from queueing to running in nanoseconds
+     */
+    public static void recordTaskLatency(TaskPriority priority, long nanos) {
+        taskLatency[priority.ordinal()].record(nanos);
+    }
+
+    private static WorldTimings getTimings(WorldServer world) {
+        WorldTimings timings = worlds.get(world);
+        if (timings == null) {
+            timings = worlds.computeIfAbsent(world, w -> new WorldTimings());
+        }
+        return timings;
+    }
+
+    /**
+     * Returns the durations of the server ticks in the given window.
+     *
+     * @param window The window
+     * @return A histogram with the tick durations in nanoseconds
+     */
+    public static LatencyHistogram getTickTimes(Window window) {
+        return ticks.getWindow(window.nanos);
+    }
+
+    /**
+     * Returns the durations of a phase in the given window. For per world
+     * phases, the duration is the sum over all worlds in each tick.
+     *
+     * @param phase The phase
+     * @param window The window
+     * @return A histogram with the phase durations in nanoseconds
+     */
+    public static LatencyHistogram getPhaseTimes(TickPhase phase, Window window) {
+        return phases[phase.ordinal()].getWindow(window.nanos);
+    }
+
+    /**
+     * Returns the time the tasks of a priority waited in the
+     * {@link MainThreadTaskQueue} in the given window.
+     *
+     * @param priority The priority of the tasks
+     * @param window The window
+     * @return A histogram with the waiting times in nanoseconds
+     */
+    public static LatencyHistogram getTaskLatency(TaskPriority priority, Window window) {
+        return taskLatency[priority.ordinal()].getWindow(window.nanos);
+    }
+
+    /**
+     * Returns the tick durations of a world in the given window.
+     *
+     * @param world The world
+     * @param window The window
+     * @return A histogram with the world tick durations in nanoseconds
+     */
+    public static LatencyHistogram getWorldTimes(WorldServer world, Window window) {
+        WorldTimings timings = worlds.get(world);
+        return timings != null ? timings.ticks.getWindow(window.nanos) : new LatencyHistogram();
+    }
+
+    /**
+     * Returns the durations of a phase of a world tick in the given window.
+     *
+     * @param world The world
+     * @param phase The phase, must be a per world phase
+     * @param window The window
+     * @return A histogram with the phase durations in nanoseconds
+     */
+    public static LatencyHistogram getWorldPhaseTimes(WorldServer world, TickPhase phase, Window window) {
+        checkArgument(phase.isPerWorld(), "%s is not measured per world", phase);
+        WorldTimings timings = worlds.get(world);
+        return timings != null ? timings.phases[phase.ordinal()].getWindow(window.nanos) : new LatencyHistogram();
+    }
+
+    /**
+     * Returns the worlds with recorded tick times.
+     *
+     * @return The worlds
+     */
+    public static Set<WorldServer> getWorlds() {
+        return Collections.unmodifiableSet(worlds.keySet());
+    }
+
+    /**
+     * Clears all recorded tick times.
+     */
+    public static void reset() {
+        ticks.reset();
+        for (SlidingLatencyHistogram phase : phases) {
+            phase.reset();
+        }
+        for (SlidingLatencyHistogram latency : taskLatency) {
+            latency.reset();
+        }
+        worlds.clear();
+    }
+
+    private static final class WorldTimings {
+
+        final SlidingLatencyHistogram ticks = new SlidingLatencyHistogram(SLOT_NANOS, SLOTS);
+        final SlidingLatencyHistogram[] phases = new SlidingLatencyHistogram[PHASES.length]; // Only per world phases
+
+        WorldTimings() {
+            for (TickPhase phase : PHASES) {
+                if (phase.isPerWorld()) {
+                    this.phases[phase.ordinal()] = new SlidingLatencyHistogram(SLOT_NANOS, SLOTS);
+                }
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,116 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.server.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * A {@link LatencyHistogram} over a sliding time window.
+ *
+ * <p>The values are recorded into a ring of histograms, each covering a
+ * fixed time slot. A slot is cleared when it is reused, so recording stays
+ * lock-free. Values recorded concurrently with the rotation of a slot may be
+ * lost.</p>
+ */
+public final class SlidingLatencyHistogram {
+
+    private final long slotNanos;
+    private final LongSupplier clock;
+    private final LatencyHistogram[] slots;
+    private final AtomicLongArray epochs; // The time slot the values in each histogram belong to
+
+    /**
+     * Creates a new sliding histogram.
+     *
+     * @param slotNanos The length of a time slot in nanoseconds
+     * @param slots The number of time slots, the longest window is one slot
+     *     shorter (the current slot is still being filled)
+     */
+    public SlidingLatencyHistogram(long slotNanos, int slots) {
+        this(slotNanos, slots, System::nanoTime);
+    }
+
+    // Allows tests to control the time
+    SlidingLatencyHistogram(long slotNanos, int slots, LongSupplier clock) {
+        this.slotNanos = slotNanos;
+        this.clock = clock;
+        this.slots = new LatencyHistogram[slots];
+        this.epochs = new AtomicLongArray(slots);
+        for (int i = 0; i < slots; i++) {
+            this.slots[i] = new LatencyHistogram();
+            this.epochs.set(i, Long.MIN_VALUE);
+        }
+    }
+
+    /**
+     * Records a duration in the current time slot.
+     *
+     * @param nanos The duration in nanoseconds
+     */
+    public void record(long nanos) {
+        long epoch = Math.floorDiv(this.clock.getAsLong(), this.slotNanos);
+        int index = (int) Math.floorMod(epoch, (long) this.slots.length);
+
+        long current = this.epochs.get(index);
+        if (current < epoch && this.epochs.compareAndSet(index, current, epoch)) {
+            this.slots[index].reset();
+        }
+
+        this.slots[index].record(nanos);
+    }
+
+    /**
+     * Returns a histogram with the values recorded in the given window. The
+     * window is rounded to whole time slots and includes the current slot.
+     *
+     * @param windowNanos The length of the window in nanoseconds
+     * @return A new histogram with the values in the window
+     */
+    public LatencyHistogram getWindow(long windowNanos) {
+        long epoch = Math.floorDiv(this.clock.getAsLong(), this.slotNanos);
+        long oldest = epoch - Math.min(this.slots.length - 1, windowNanos / this.slotNanos);
+
+        LatencyHistogram result = new LatencyHistogram();
+        for (int i = 0; i < this.slots.length; i++) {
+            long slotEpoch = this.epochs.get(i);
+            if (slotEpoch >= oldest && slotEpoch <= epoch) {
+                this.slots[i].addTo(result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Clears all recorded values.
+     */
+    public void reset() {
+        for (int i = 0; i < this.slots.length; i++) {
+            this.epochs.set(i, Long.MIN_VALUE);
+            this.slots[i].reset();
+        }
+    }
+
+}
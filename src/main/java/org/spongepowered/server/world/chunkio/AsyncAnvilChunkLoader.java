@@ -27,10 +27,12 @@
 import static net.minecraft.world.chunk.storage.AnvilChunkLoader.readChunkEntity;
 
 import net.minecraft.block.Block;
+import net.minecraft.entity.EntityList;
 import net.minecraft.nbt.CompressedStreamTools;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.nbt.NBTTagList;
 import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.ResourceLocation;
 import net.minecraft.util.datafix.FixTypes;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkPos;
@@ -38,11 +40,18 @@
 import net.minecraft.world.chunk.Chunk;
 import net.minecraft.world.chunk.storage.AnvilChunkLoader;
 import net.minecraft.world.chunk.storage.RegionFileCache;
+import org.spongepowered.common.SpongeImpl;
+import org.spongepowered.server.bridge.world.chunkio.AnvilChunkLoaderBridge_Vanilla;
 import org.spongepowered.server.mixin.chunkio.AnvilChunkLoaderAccessor_ChunkIO;
 import org.spongepowered.server.mixin.core.world.chunk.storage.AnvilChunkLoaderAccessor_Vanilla;
+import org.spongepowered.server.world.chunkio.PreparedChunkEntities.PreparedTileTick;
 
 import java.io.DataInputStream;
+import java.io.File;
 import java.io.IOException;
+import java.util.List;
+
+import javax.annotation.Nullable;
 
 public final class AsyncAnvilChunkLoader {
 
@@ -61,26 +70,151 @@ private AsyncAnvilChunkLoader() {
      * @return The NBT data, or null if no data is present for the chunk
      * @throws IOException If an error occurs while reading the chunk
      */
+    @Nullable
     public static NBTTagCompound read(AnvilChunkLoader loader, int x, int z) throws IOException {
         // Copied from AnvilChunkLoader.loadChunk, keep this up-to-date!
 
-        ChunkPos chunkpos = new ChunkPos(x, z);
-        NBTTagCompound nbttagcompound = ((AnvilChunkLoaderAccessor_Vanilla) loader).accessor$getChunksToSave().get(chunkpos);
+        // Sponge start: Split into separate steps for the staged chunk loading
+        NBTTagCompound nbttagcompound = readPending(loader, x, z);
 
         if (nbttagcompound == null) {
-            DataInputStream datainputstream = RegionFileCache.getChunkInputStream(((AnvilChunkLoaderAccessor_Vanilla) loader).accessor$getChunkSaveLocation(), x, z);
+            DataInputStream datainputstream = openChunk(loader, x, z);
 
             if (datainputstream == null) {
                 return null;
             }
 
-            nbttagcompound = ((AnvilChunkLoaderAccessor_ChunkIO) loader).chunkIOAccessor$getFixer().process(FixTypes.CHUNK, CompressedStreamTools.read(datainputstream));
+            nbttagcompound = decode(loader, datainputstream);
         }
+        // Sponge end
 
         // Sponge: Return NBT data and load chunk later
         return nbttagcompound;
     }
 
+    /**
+     * Returns the NBT data of the chunk if it is still waiting to be saved.
+     *
+     * @param loader The loader to use for loading the data
+     * @param x The x coordinate of the chunk
+     * @param z The z coordinate of the chunk
+     * @return The NBT data, or null if the chunk has no pending save
+     */
+    @Nullable
+    public static NBTTagCompound readPending(AnvilChunkLoader loader, int x, int z) {
+        ChunkPos chunkpos = new ChunkPos(x, z);
+        NBTTagCompound nbttagcompound = ((AnvilChunkLoaderAccessor_Vanilla) loader).accessor$getChunksToSave().get(chunkpos);
+
+        // Sponge start: Check the chunks that are currently written by the chunk saver
+        if (nbttagcompound == null && ChunkIOSettings.ASYNC_SAVES) {
+            nbttagcompound = ((AnvilChunkLoaderBridge_Vanilla) loader).vanillaBridge$getChunkSaver().getWriting(chunkpos);
+        }
+        // Sponge end
+
+        return nbttagcompound;
+    }
+
+    /**
+     * Reads the chunk sectors from the region file, or takes the chunk from
+     * the {@link ChunkNBTCache} if it was saved recently. The returned stream
+     * is decompressed lazily, so this only performs the I/O.
+     *
+     * @param loader The loader to use for loading the data
+     * @param x The x coordinate of the chunk
+     * @param z The z coordinate of the chunk
+     * @return The compressed chunk data, or null if the chunk is not stored
+     * @throws IOException If an error occurs while reading the chunk
+     */
+    @Nullable
+    public static DataInputStream openChunk(AnvilChunkLoader loader, int x, int z) throws IOException {
+        // Sponge start: Check the recently saved chunks first
+        DataInputStream cached = ((AnvilChunkLoaderBridge_Vanilla) loader).vanillaBridge$getChunkCache().take(x, z);
+        if (cached != null) {
+            return cached;
+        }
+
+        // Read from the memory mapped region file if enabled
+        //DataInputStream datainputstream = RegionFileCache.getChunkInputStream(((AnvilChunkLoaderAccessor_Vanilla) loader).accessor$getChunkSaveLocation(), x, z);
+        File saveLocation = ((AnvilChunkLoaderAccessor_Vanilla) loader).accessor$getChunkSaveLocation();
+        return ChunkIOSettings.MAPPED_REGIONS ? MappedRegionFileCache.getChunkInputStream(saveLocation, x, z)
+                : RegionFileCache.getChunkInputStream(saveLocation, x, z);
+        // Sponge end
+    }
+
+    /**
+     * Decompresses and parses the chunk data returned by
+     * {@link #openChunk(AnvilChunkLoader, int, int)} and updates it to the
+     * current data version. This is CPU bound and doesn't perform I/O.
+     *
+     * @param loader The loader to use for loading the data
+     * @param datainputstream The compressed chunk data
+     * @return The NBT data
+     * @throws IOException If the chunk data is invalid
+     */
+    public static NBTTagCompound decode(AnvilChunkLoader loader, DataInputStream datainputstream) throws IOException {
+        return ((AnvilChunkLoaderAccessor_ChunkIO) loader).chunkIOAccessor$getFixer().process(FixTypes.CHUNK, CompressedStreamTools.read(datainputstream));
+    }
+
+    /**
+     * Extracts the entities, tile entities and scheduled block updates from
+     * the chunk data and resolves the entity and block types, so only the
+     * objects need to be constructed on the main thread. Entities with
+     * unknown types are skipped here instead.
+     *
+     * <p>This is safe to call asynchronously from a separate thread.</p>
+     *
+     * @param compound The loaded data of the chunk
+     * @return The prepared entities
+     */
+    public static PreparedChunkEntities prepareEntities(NBTTagCompound compound) {
+        compound = compound.getCompoundTag("Level"); // Sponge: Method below expects Level nbt compound
+
+        // Split from AnvilChunkLoader.readChunkFromNBT, keep this up-to-date!
+        NBTTagList nbttaglist1 = compound.getTagList("Entities", 10);
+        NBTTagList nbttaglist2 = compound.getTagList("TileEntities", 10);
+        NBTTagList nbttaglist3 = compound.getTagList("TileTicks", 10);
+
+        if (nbttaglist1.hasNoTags() && nbttaglist2.hasNoTags() && nbttaglist3.hasNoTags()) {
+            return PreparedChunkEntities.EMPTY;
+        }
+
+        // Only the type lookup of EntityList.createEntityFromNBT runs here, the entities are constructed by readChunkEntity on the main thread
+        List<NBTTagCompound> entities = PreparedChunkEntities.newList(nbttaglist1.tagCount());
+        for (int j1 = 0; j1 < nbttaglist1.tagCount(); ++j1) {
+            NBTTagCompound nbttagcompound1 = nbttaglist1.getCompoundTagAt(j1);
+            String id = nbttagcompound1.getString("id");
+
+            if (EntityList.getClass(new ResourceLocation(id)) != null) {
+                entities.add(nbttagcompound1);
+            } else {
+                SpongeImpl.getLogger().warn("Skipping Entity with id {}", id);
+            }
+        }
+
+        // Tile entities are created on the main thread through TileEntity.create, so Sponge and plugins can hook into it
+        List<NBTTagCompound> tileEntities = PreparedChunkEntities.newList(nbttaglist2.tagCount());
+        for (int k1 = 0; k1 < nbttaglist2.tagCount(); ++k1) {
+            tileEntities.add(nbttaglist2.getCompoundTagAt(k1));
+        }
+
+        List<PreparedTileTick> tileTicks = PreparedChunkEntities.newList(nbttaglist3.tagCount());
+        for (int l1 = 0; l1 < nbttaglist3.tagCount(); ++l1) {
+            NBTTagCompound nbttagcompound3 = nbttaglist3.getCompoundTagAt(l1);
+            Block block;
+
+            if (nbttagcompound3.hasKey("i", 8)) {
+                block = Block.getBlockFromName(nbttagcompound3.getString("i"));
+            } else {
+                block = Block.getBlockById(nbttagcompound3.getInteger("i"));
+            }
+
+            tileTicks.add(new PreparedTileTick(new BlockPos(nbttagcompound3.getInteger("x"), nbttagcompound3.getInteger("y"),
+                    nbttagcompound3.getInteger("z")), block, nbttagcompound3.getInteger("t"), nbttagcompound3.getInteger("p")));
+        }
+
+        return new PreparedChunkEntities(entities, tileEntities, tileTicks);
+    }
+
     /**
      * Finishes the loading of a chunk and adds stored entities and tile
      * entities.
@@ -93,21 +227,28 @@ public static NBTTagCompound read(AnvilChunkLoader loader, int x, int z) throws
      * @param compound The loaded data of the chunk
      */
     public static void loadEntities(World worldIn, Chunk chunk, NBTTagCompound compound) {
-        compound = compound.getCompoundTag("Level"); // Sponge: Method below expects Level nbt compound
+        loadEntities(worldIn, chunk, prepareEntities(compound));
+    }
 
+    /**
+     * Finishes the loading of a chunk and adds the entities and tile entities
+     * prepared by {@link #prepareEntities(NBTTagCompound)}.
+     *
+     * <p>This part of the chunk loading should be <b>always</b> called
+     * on the main thread.</p>
+     *
+     * @param worldIn The world to load the chunk in
+     * @param chunk The chunk to add the entities to
+     * @param prepared The prepared entities of the chunk
+     */
+    public static void loadEntities(World worldIn, Chunk chunk, PreparedChunkEntities prepared) {
         // Copied from AnvilChunkLoader.readChunkFromNBT, keep this up-to-date!
-        NBTTagList nbttaglist1 = compound.getTagList("Entities", 10);
-
-        for (int j1 = 0; j1 < nbttaglist1.tagCount(); ++j1) {
-            NBTTagCompound nbttagcompound1 = nbttaglist1.getCompoundTagAt(j1);
+        for (NBTTagCompound nbttagcompound1 : prepared.entities) {
             readChunkEntity(nbttagcompound1, worldIn, chunk);
             chunk.setHasEntities(true);
         }
 
-        NBTTagList nbttaglist2 = compound.getTagList("TileEntities", 10);
-
-        for (int k1 = 0; k1 < nbttaglist2.tagCount(); ++k1) {
-            NBTTagCompound nbttagcompound2 = nbttaglist2.getCompoundTagAt(k1);
+        for (NBTTagCompound nbttagcompound2 : prepared.tileEntities) {
             TileEntity tileentity = TileEntity.create(worldIn, nbttagcompound2);
 
             if (tileentity != null) {
@@ -115,22 +256,8 @@ public static void loadEntities(World worldIn, Chunk chunk, NBTTagCompound compo
             }
         }
 
-        if (compound.hasKey("TileTicks", 9)) {
-            NBTTagList nbttaglist3 = compound.getTagList("TileTicks", 10);
-
-            for (int l1 = 0; l1 < nbttaglist3.tagCount(); ++l1) {
-                NBTTagCompound nbttagcompound3 = nbttaglist3.getCompoundTagAt(l1);
-                Block block;
-
-                if (nbttagcompound3.hasKey("i", 8)) {
-                    block = Block.getBlockFromName(nbttagcompound3.getString("i"));
-                } else {
-                    block = Block.getBlockById(nbttagcompound3.getInteger("i"));
-                }
-
-                worldIn.scheduleBlockUpdate(new BlockPos(nbttagcompound3.getInteger("x"), nbttagcompound3.getInteger("y"), nbttagcompound3.getInteger("z")),
-                        block, nbttagcompound3.getInteger("t"), nbttagcompound3.getInteger("p"));
-            }
+        for (PreparedTileTick tick : prepared.tileTicks) {
+            worldIn.scheduleBlockUpdate(tick.pos, tick.block, tick.delay, tick.priority);
         }
     }
 
@@ -0,0 +1,210 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.server.world.chunkio;
+
+import net.minecraft.nbt.CompressedStreamTools;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.chunk.storage.RegionFile;
+import net.minecraft.world.chunk.storage.RegionFileCache;
+import org.spongepowered.common.SpongeImpl;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.Nullable;
+
+/**
+ * Writes the chunks saved by an {@link net.minecraft.world.chunk.storage.AnvilChunkLoader}
+ * on a separate thread, replacing the vanilla {@code ThreadedFileIOBase}
+ * queue which writes a single chunk at a time.
+ *
+ * <p>Saves are queued in the loader's {@code chunksToSave} map, so repeated
+ * saves of the same chunk are merged and {@link AsyncAnvilChunkLoader#read}
+ * keeps returning the latest data. The queued chunks are written in batches,
+ * grouped by region file and sorted in the order of the region's sector
+ * table.</p>
+ */
+public final class AsyncAnvilChunkSaver {
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "Chunk Save Thread");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final Comparator<ChunkPos> REGION_ORDER = Comparator
+            .comparingInt((ChunkPos pos) -> pos.x >> 5)
+            .thenComparingInt(pos -> pos.z >> 5)
+            .thenComparingInt(pos -> (pos.z & 31) << 5 | (pos.x & 31));
+
+    private final File saveLocation;
+    private final Map<ChunkPos, NBTTagCompound> pending;
+    private final ChunkNBTCache cache;
+    private final ChunkSaveFilter filter;
+    private final Map<ChunkPos, NBTTagCompound> writing = new ConcurrentHashMap<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    /**
+     * Creates a new chunk saver.
+     *
+     * @param saveLocation The directory containing the region directory
+     * @param pending The map of chunks waiting to be saved, shared with the loader
+     * @param cache The cache to add written chunks to
+     * @param filter The filter skipping unchanged chunks
+     */
+    public AsyncAnvilChunkSaver(File saveLocation, Map<ChunkPos, NBTTagCompound> pending, ChunkNBTCache cache, ChunkSaveFilter filter) {
+        this.saveLocation = saveLocation;
+        this.pending = pending;
+        this.cache = cache;
+        this.filter = filter;
+    }
+
+    /**
+     * Queues the chunk to be written. A previously queued save of the same
+     * chunk that wasn't written yet is replaced.
+     *
+     * @param pos The position of the chunk
+     * @param compound The serialized chunk
+     */
+    public void queue(ChunkPos pos, NBTTagCompound compound) {
+        this.pending.put(pos, compound);
+        if (this.scheduled.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    /**
+     * Returns the data of a chunk that was already removed from the pending
+     * chunks, but is still being written to the region file.
+     *
+     * <p>Check the pending chunks first, a chunk is only removed from them
+     * after it was added here.</p>
+     *
+     * @param pos The position of the chunk
+     * @return The chunk data, or null if the chunk isn't being written
+     */
+    @Nullable
+    public NBTTagCompound getWriting(ChunkPos pos) {
+        return this.writing.get(pos);
+    }
+
+    /**
+     * Blocks until all chunks queued for this loader have been written.
+     *
+     * <p>A chunk is removed from the pending chunks before it is written, so
+     * an empty queue doesn't mean the writes are done. The executor runs a
+     * single task at a time, so waiting for a task submitted afterwards
+     * waits for the chunk currently being written as well.</p>
+     */
+    public void flush() {
+        do {
+            await(executor.submit(this::drain));
+        } while (!this.pending.isEmpty());
+    }
+
+    /**
+     * Blocks until all chunks queued so far have been written, for all
+     * loaders. Used as barrier when the server is stopped.
+     */
+    public static void flushAll() {
+        // The executor runs the tasks in order, and every queued chunk has a drain scheduled
+        await(executor.submit(() -> {}));
+    }
+
+    private static void await(Future<?> future) {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for chunk saves", e);
+        } catch (ExecutionException e) {
+            SpongeImpl.getLogger().error("Failed to save chunks", e.getCause());
+        }
+    }
+
+    private void drain() {
+        // Reset before reading the queue so chunks queued while writing schedule another drain
+        this.scheduled.set(false);
+        if (this.pending.isEmpty()) {
+            return;
+        }
+
+        List<ChunkPos> positions = new ArrayList<>(this.pending.keySet());
+        positions.sort(REGION_ORDER);
+
+        RegionFile region = null;
+        int regionX = 0;
+        int regionZ = 0;
+
+        for (ChunkPos pos : positions) {
+            NBTTagCompound compound = this.pending.get(pos);
+            if (compound == null) {
+                continue;
+            }
+
+            // Publish the chunk as being written before it disappears from the pending chunks
+            this.writing.put(pos, compound);
+            this.pending.remove(pos, compound); // Keep newer saves queued
+
+            try {
+                if (this.filter.isUnchanged(pos, compound)) {
+                    continue; // The region file already contains the same data
+                }
+
+                if (region == null || pos.x >> 5 != regionX || pos.z >> 5 != regionZ) {
+                    region = RegionFileCache.createOrLoadRegionFile(this.saveLocation, pos.x, pos.z);
+                    regionX = pos.x >> 5;
+                    regionZ = pos.z >> 5;
+                }
+
+                try (DataOutputStream out = region.getChunkDataOutputStream(pos.x & 31, pos.z & 31)) {
+                    CompressedStreamTools.write(compound, out);
+                }
+
+                // Must happen before the chunk is removed from the chunks being written
+                this.cache.put(pos, compound);
+                this.filter.written(pos, compound);
+            } catch (IOException e) {
+                SpongeImpl.getLogger().error("Failed to save chunk {} in {}", pos, this.saveLocation, e);
+                this.cache.invalidate(pos);
+            } finally {
+                this.writing.remove(pos, compound);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,229 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.server.world.chunkio;
+
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.gen.ChunkProviderServer;
+import org.spongepowered.server.bridge.world.chunkio.ChunkIOProviderBridge_Vanilla;
+import org.spongepowered.server.mixin.chunkio.ChunkProviderServerAccessor_Vanilla;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import javax.annotation.Nullable;
+
+/**
+ * Loads or generates chunks requested by plugins without blocking the main
+ * thread until all of them are done.
+ *
+ * <p>Existing chunks are loaded through the asynchronous chunk loader. Missing
+ * chunks are generated on the main thread, but only a few of them per tick.
+ * A chunk is only populated once its neighbours in positive x and z direction
+ * are loaded as well, so these are loaded (or generated) in a fixed order
+ * before the request completes. Chunks that are already populated complete
+ * without touching their neighbours. The chunks loaded for a request are kept
+ * from being unloaded until the chunk has been populated.</p>
+ */
+public final class AsyncChunkGenerator {
+
+    // The chunks that need to be loaded before the chunk at (0, 0) is populated, see Chunk.populate
+    private static final int[][] POPULATE_ORDER = {{0, 0}, {1, 0}, {0, 1}, {1, 1}};
+    private static final int MAX_ATTEMPTS = 3;
+
+    private static final Queue<Request> submitted = new ConcurrentLinkedQueue<>();
+    private static final Deque<Request> waiting = new ArrayDeque<>(); // Main thread only
+    private static final List<Request> active = new ArrayList<>(); // Main thread only
+
+    private AsyncChunkGenerator() {
+    }
+
+    /**
+     * Loads the chunk, and generates and populates it if it doesn't exist yet.
+     *
+     * <p>This is safe to call from any thread. The future is completed on the
+     * main thread once the chunk has been populated.</p>
+     *
+     * @param provider The chunk provider of the world
+     * @param x The x coordinate of the chunk
+     * @param z The z coordinate of the chunk
+     * @return The future for the chunk
+     */
+    public static CompletableFuture<Chunk> loadOrGenerate(ChunkProviderServer provider, int x, int z) {
+        Request request = new Request(provider, x, z);
+        submitted.add(request);
+        return request.future;
+    }
+
+    /**
+     * Returns the number of requests that have been started, but are not
+     * done yet. Must be called on the main thread.
+     */
+    public static int getInFlight() {
+        return active.size();
+    }
+
+    /**
+     * Returns the number of requests waiting to be started. Must be called on
+     * the main thread.
+     */
+    public static int getQueued() {
+        return waiting.size() + submitted.size();
+    }
+
+    public static void tick() {
+        Request request;
+        while ((request = submitted.poll()) != null) {
+            waiting.add(request);
+        }
+
+        while (active.size() < ChunkIOSettings.MAX_GENERATIONS_IN_FLIGHT && (request = waiting.poll()) != null) {
+            active.add(request);
+            request.advance();
+        }
+
+        int generations = ChunkIOSettings.GENERATIONS_PER_TICK;
+        for (Iterator<Request> itr = active.iterator(); itr.hasNext(); ) {
+            request = itr.next();
+            request.keepLoaded();
+            if (request.generating && generations > 0) {
+                generations--;
+                request.generate();
+            }
+
+            if (request.future.isDone()) {
+                itr.remove();
+            }
+        }
+    }
+
+    private static final class Request {
+
+        final ChunkProviderServer provider;
+        final int x;
+        final int z;
+        final CompletableFuture<Chunk> future = new CompletableFuture<>();
+
+        private int step;
+        private int attempts;
+        boolean generating;
+
+        Request(ChunkProviderServer provider, int x, int z) {
+            this.provider = provider;
+            this.x = x;
+            this.z = z;
+        }
+
+        void advance() {
+            while (this.step < POPULATE_ORDER.length) {
+                int x = this.x + POPULATE_ORDER[this.step][0];
+                int z = this.z + POPULATE_ORDER[this.step][1];
+                Chunk chunk = this.provider.getLoadedChunk(x, z);
+                if (chunk == null) {
+                    // Try loading it from disk first, generate it only if it doesn't exist
+                    ((ChunkIOProviderBridge_Vanilla) this.provider).vanillaBridge$loadChunk(x, z, this::onLoaded);
+                    return;
+                }
+
+                if (this.step == 0 && chunk.isTerrainPopulated()) {
+                    // Already populated, don't load or generate the neighbours
+                    this.future.complete(chunk);
+                    return;
+                }
+
+                this.step++;
+            }
+
+            Chunk chunk = this.provider.getLoadedChunk(this.x, this.z);
+            if (chunk != null && !chunk.isTerrainPopulated() && isNeighbourhoodLoaded()) {
+                // All chunks were already loaded, so no load triggered the population
+                chunk.populate(this.provider, ((ChunkProviderServerAccessor_Vanilla) this.provider).chunkIOAccessor$getChunkGenerator());
+            }
+
+            if (chunk != null && chunk.isTerrainPopulated()) {
+                this.future.complete(chunk);
+            } else if (++this.attempts < MAX_ATTEMPTS) {
+                // A neighbour was unloaded before the chunk could be populated
+                this.step = 0;
+                advance();
+            } else {
+                this.future.completeExceptionally(new IllegalStateException("Failed to " + (chunk != null ? "populate" : "generate") + " chunk in "
+                        + ((ChunkProviderServerAccessor_Vanilla) this.provider).chunkIOAccessor$getWorld() + " @ (" + this.x + ", " + this.z + ")"));
+            }
+        }
+
+        private boolean isNeighbourhoodLoaded() {
+            for (int[] offset : POPULATE_ORDER) {
+                if (this.provider.getLoadedChunk(this.x + offset[0], this.z + offset[1]) == null) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Cancels queued unloads of the chunks loaded for this request until
+         * the chunk has been populated. Called every tick, before the chunk
+         * providers unload the queued chunks.
+         */
+        void keepLoaded() {
+            for (int[] offset : POPULATE_ORDER) {
+                Chunk chunk = this.provider.getLoadedChunk(this.x + offset[0], this.z + offset[1]);
+                if (chunk != null) {
+                    chunk.unloadQueued = false;
+                }
+            }
+        }
+
+        private void onLoaded(@Nullable Chunk chunk) {
+            if (chunk == null) {
+                this.generating = true; // Generate in one of the next ticks
+            } else {
+                this.step++;
+                advance();
+            }
+        }
+
+        void generate() {
+            this.generating = false;
+            try {
+                this.provider.provideChunk(this.x + POPULATE_ORDER[this.step][0], this.z + POPULATE_ORDER[this.step][1]);
+            } catch (RuntimeException e) {
+                this.future.completeExceptionally(e);
+                return;
+            }
+
+            this.step++;
+            advance();
+        }
+
+    }
+
+}
@@ -0,0 +1,158 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.server.world.chunkio;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.WorldServer;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.gen.ChunkProviderServer;
+import org.spongepowered.common.bridge.world.WorldServerBridge;
+import org.spongepowered.common.world.WorldManager;
+import org.spongepowered.server.mixin.chunkio.ChunkProviderServerAccessor_Vanilla;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Spreads the chunk garbage collection and chunk unloading of all worlds
+ * over multiple ticks, replacing the per-world
+ * {@link WorldServerBridge#bridge$doChunkGC()} and
+ * {@link ChunkProviderServer#tick()} calls in the world tick loop.
+ *
+ * <p>Instead of checking all loaded chunks of a world at once whenever its
+ * GC interval elapses, a snapshot of the loaded chunks is taken and checked
+ * with a cursor, a slice at a time, until the time budget of the tick
+ * ({@link ChunkIOSettings#GC_BUDGET_NANOS}) is used up. Chunks that are no
+ * longer used by any player are queued for unloading like before. The worlds
+ * are visited in a different order each tick, so no world is starved by the
+ * ones before it. The queued chunks are unloaded by the chunk provider tick,
+ * which is skipped for worlds once the budget is exhausted, but at least
+ * every {@link #MAX_UNLOAD_SKIP_TICKS} ticks.</p>
+ */
+public final class ChunkGCScheduler {
+
+    private static final int SLICE = 64; // Chunks checked between budget checks
+    private static final int MAX_UNLOAD_SKIP_TICKS = 20;
+
+    private static final Map<WorldServer, State> states = new IdentityHashMap<>(); // Main thread only
+    private static int rotation;
+
+    private ChunkGCScheduler() {
+    }
+
+    public static boolean isEnabled() {
+        return ChunkIOSettings.GC_BUDGET_NANOS > 0;
+    }
+
+    /**
+     * Runs the chunk GC and unloading for all ticked worlds within the time
+     * budget. Called once per tick after the worlds were ticked.
+     *
+     * @param allowNether Whether worlds other than the overworld are ticked
+     */
+    public static void tick(boolean allowNether) {
+        long deadline = System.nanoTime() + ChunkIOSettings.GC_BUDGET_NANOS;
+
+        List<WorldServer> worlds = new ArrayList<>();
+        for (ObjectIterator<Int2ObjectMap.Entry<WorldServer>> it = WorldManager.worldsIterator(); it.hasNext();) {
+            Int2ObjectMap.Entry<WorldServer> entry = it.next();
+            if ((entry.getIntKey() == 0 || allowNether) && ((WorldServerBridge) entry.getValue()).bridge$getChunkGCTickInterval() > 0) {
+                worlds.add(entry.getValue());
+            }
+        }
+
+        // Forget unloaded worlds
+        states.keySet().retainAll(worlds);
+        if (worlds.isEmpty()) {
+            return;
+        }
+
+        int start = rotation++ % worlds.size();
+        for (int i = 0; i < worlds.size(); i++) {
+            WorldServer world = worlds.get((start + i) % worlds.size());
+            State state = states.computeIfAbsent(world, w -> new State());
+            state.tick(world, deadline);
+        }
+    }
+
+    private static final class State {
+
+        private int ticksSinceGC;
+        private int ticksSinceUnload;
+        private long[] snapshot = new long[0];
+        private int cursor;
+
+        void tick(WorldServer world, long deadline) {
+            ChunkProviderServer provider = world.getChunkProvider();
+
+            if (this.cursor >= this.snapshot.length && ++this.ticksSinceGC >= ((WorldServerBridge) world).bridge$getChunkGCTickInterval()) {
+                // Start a new pass, chunks loaded after this are checked in the next pass
+                this.ticksSinceGC = 0;
+                this.snapshot = ((ChunkProviderServerAccessor_Vanilla) provider).chunkIOAccessor$getLoadedChunks().keySet().toLongArray();
+                this.cursor = 0;
+            }
+
+            // Check at least one slice per tick, so the pass always finishes
+            do {
+                int end = Math.min(this.cursor + SLICE, this.snapshot.length);
+                for (; this.cursor < end; this.cursor++) {
+                    long pos = this.snapshot[this.cursor];
+                    collect(world, provider, (int) pos, (int) (pos >> 32));
+                }
+            } while (this.cursor < this.snapshot.length && System.nanoTime() < deadline);
+
+            if (this.cursor >= this.snapshot.length) {
+                this.snapshot = new long[0]; // Release the memory until the next pass
+                this.cursor = 0;
+            }
+
+            if (System.nanoTime() < deadline || ++this.ticksSinceUnload >= MAX_UNLOAD_SKIP_TICKS) {
+                this.ticksSinceUnload = 0;
+                provider.tick();
+            }
+        }
+
+        private static void collect(WorldServer world, ChunkProviderServer provider, int x, int z) {
+            Chunk chunk = ((ChunkProviderServerAccessor_Vanilla) provider).chunkIOAccessor$getLoadedChunks().get(ChunkPos.asLong(x, z));
+            if (chunk == null || chunk.unloadQueued) {
+                return;
+            }
+
+            // If a player is currently using the chunk, skip it
+            if (world.getPlayerChunkMap().contains(x, z)) {
+                return;
+            }
+
+            // The chunk leaked, the provider checks if it may be unloaded
+            provider.queueUnload(chunk);
+        }
+
+    }
+
+}
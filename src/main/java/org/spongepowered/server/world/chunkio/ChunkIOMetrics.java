@@ -0,0 +1,260 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.server.world.chunkio;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.MapMaker;
+import net.minecraft.world.World;
+import net.minecraftforge.common.chunkio.ChunkIOExecutor;
+import org.spongepowered.server.util.LatencyHistogram;
+import org.spongepowered.server.world.chunkio.ChunkIOPoolController.PoolResize;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency distributions of the asynchronous chunk loading.
+ *
+ * <p>All values are cumulative since the server started (or the last
+ * {@link #reset()}). They are shown by the {@code /chunkio} command and can
+ * be read by plugins, e.g. to alert on a growing chunk loading backlog.</p>
+ */
+public final class ChunkIOMetrics {
+
+    private static final LongAdder syncLoads = new LongAdder();
+    private static final LongAdder droppedCallbacks = new LongAdder();
+    private static final LongAdder cacheHits = new LongAdder();
+    private static final LongAdder cacheMisses = new LongAdder();
+    private static final LongAdder cacheBytes = new LongAdder(); // Current size, not reset
+    private static final LongAdder skippedSaves = new LongAdder();
+    private static final LongAdder deferredFinalizations = new LongAdder();
+    private static final LatencyHistogram syncLoadLatency = new LatencyHistogram();
+    private static final LatencyHistogram syncBlocked = new LatencyHistogram();
+    private static final LatencyHistogram queueWait = new LatencyHistogram();
+    private static final LatencyHistogram readLatency = new LatencyHistogram();
+    private static final LatencyHistogram processLatency = new LatencyHistogram();
+    private static final Map<World, LongAdder> bytesRead = new MapMaker().weakKeys().makeMap();
+    private static final Deque<PoolResize> poolResizes = new ArrayDeque<>(); // Guarded by itself
+    private static final int MAX_POOL_RESIZES = 16;
+
+    private ChunkIOMetrics() {
+    }
+
+    public static void recordSyncLoad(long nanos, long blockedNanos) {
+        syncLoads.increment();
+        syncLoadLatency.record(nanos);
+        syncBlocked.record(blockedNanos);
+    }
+
+    public static void recordDroppedCallback() {
+        droppedCallbacks.increment();
+    }
+
+    public static void recordCacheHit() {
+        cacheHits.increment();
+    }
+
+    public static void recordCacheMiss() {
+        cacheMisses.increment();
+    }
+
+    static void addCacheBytes(long bytes) {
+        cacheBytes.add(bytes);
+    }
+
+    static void recordSkippedSave() {
+        skippedSaves.increment();
+    }
+
+    public static void recordDeferredFinalizations(int count) {
+        deferredFinalizations.add(count);
+    }
+
+    public static void recordPoolResize(PoolResize resize) {
+        synchronized (poolResizes) {
+            if (poolResizes.size() == MAX_POOL_RESIZES) {
+                poolResizes.removeFirst();
+            }
+            poolResizes.addLast(resize);
+        }
+    }
+
+    public static void recordQueueWait(long nanos) {
+        queueWait.record(nanos);
+    }
+
+    public static void recordRead(long nanos) {
+        readLatency.record(nanos);
+    }
+
+    public static void recordProcess(World world, long nanos, long bytes) {
+        processLatency.record(nanos);
+        bytesRead.computeIfAbsent(world, w -> new LongAdder()).add(bytes);
+    }
+
+    /**
+     * Returns the number of chunk loads that are queued or running on the
+     * chunk I/O threads, or waiting to be finalized on the main thread.
+     */
+    public static int getPendingTasks() {
+        return ChunkIOExecutor.getReadQueueDepth() + ChunkIOExecutor.getProcessQueueDepth() + ChunkIOExecutor.getPendingFinalizations();
+    }
+
+    /**
+     * Returns the number of chunks that were loaded synchronously, blocking
+     * the main thread.
+     */
+    public static long getSyncLoads() {
+        return syncLoads.sum();
+    }
+
+    /**
+     * Returns the time the main thread spent in synchronous chunk loads,
+     * including reading and processing chunks itself.
+     */
+    public static LatencyHistogram getSyncLoadLatency() {
+        return syncLoadLatency;
+    }
+
+    /**
+     * Returns the time the main thread spent idle in synchronous chunk
+     * loads, waiting for a chunk I/O thread without any other work to do.
+     */
+    public static LatencyHistogram getSyncBlocked() {
+        return syncBlocked;
+    }
+
+    /**
+     * Returns the number of load callbacks removed with
+     * {@link ChunkIOExecutor#dropQueuedChunkLoad}.
+     */
+    public static long getDroppedCallbacks() {
+        return droppedCallbacks.sum();
+    }
+
+    /**
+     * Returns the number of chunks read from the {@link ChunkNBTCache}
+     * instead of the region files.
+     */
+    public static long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    /**
+     * Returns the number of chunks that were not found in the
+     * {@link ChunkNBTCache} and had to be read from the region files.
+     */
+    public static long getCacheMisses() {
+        return cacheMisses.sum();
+    }
+
+    /**
+     * Returns the current size of the {@link ChunkNBTCache}s of all worlds
+     * in bytes.
+     */
+    public static long getCacheBytes() {
+        return cacheBytes.sum();
+    }
+
+    /**
+     * Returns the number of chunk saves that weren't written because the
+     * region file already contained the same data, see {@link ChunkSaveFilter}.
+     */
+    public static long getSkippedSaves() {
+        return skippedSaves.sum();
+    }
+
+    /**
+     * Returns the number of times a loaded chunk was carried over to the
+     * next tick because the finalization budget was exhausted.
+     */
+    public static long getDeferredFinalizations() {
+        return deferredFinalizations.sum();
+    }
+
+    /**
+     * Returns the most recent changes of the read pool size made by the
+     * {@link ChunkIOPoolController}, oldest first.
+     */
+    public static List<PoolResize> getPoolResizes() {
+        synchronized (poolResizes) {
+            return ImmutableList.copyOf(poolResizes);
+        }
+    }
+
+    /**
+     * Returns the time between queuing a chunk load and a chunk I/O thread
+     * starting to read it.
+     */
+    public static LatencyHistogram getQueueWait() {
+        return queueWait;
+    }
+
+    /**
+     * Returns the time spent reading chunks from the region files.
+     */
+    public static LatencyHistogram getReadLatency() {
+        return readLatency;
+    }
+
+    /**
+     * Returns the time spent decompressing, parsing and fixing chunks.
+     */
+    public static LatencyHistogram getProcessLatency() {
+        return processLatency;
+    }
+
+    /**
+     * Returns the number of (uncompressed) NBT bytes read per world.
+     */
+    public static Map<World, Long> getBytesRead() {
+        ImmutableMap.Builder<World, Long> builder = ImmutableMap.builder();
+        bytesRead.forEach((world, bytes) -> builder.put(world, bytes.sum()));
+        return builder.build();
+    }
+
+    public static void reset() {
+        syncLoads.reset();
+        droppedCallbacks.reset();
+        cacheHits.reset();
+        cacheMisses.reset();
+        skippedSaves.reset();
+        deferredFinalizations.reset();
+        syncLoadLatency.reset();
+        syncBlocked.reset();
+        queueWait.reset();
+        readLatency.reset();
+        processLatency.reset();
+        bytesRead.clear();
+        synchronized (poolResizes) {
+            poolResizes.clear();
+        }
+    }
+
+}
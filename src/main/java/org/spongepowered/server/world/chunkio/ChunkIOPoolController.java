@@ -0,0 +1,199 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.server.world.chunkio;
+
+import org.spongepowered.common.SpongeImpl;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sizes the chunk I/O read pool based on the measured load instead of the
+ * number of online players.
+ *
+ * <p>Every {@link #INTERVAL_TICKS} ticks, the average time that loads spent
+ * waiting in the queue and the utilization of the read threads are
+ * calculated for the last interval. A thread is added if loads wait longer
+ * than {@link ChunkIOSettings#POOL_GROW_WAIT_NANOS} while the threads are
+ * busy, and removed if loads barely wait and the threads are mostly idle.
+ * Both need to be observed for several consecutive intervals, so the pool
+ * doesn't oscillate on short bursts.</p>
+ *
+ * <p>All decisions are recorded in {@link ChunkIOMetrics#getPoolResizes()}.</p>
+ */
+public final class ChunkIOPoolController {
+
+    public static final int INTERVAL_TICKS = 20;
+
+    private static final int GROW_INTERVALS = 2;
+    private static final int SHRINK_INTERVALS = 10;
+    private static final double GROW_UTILIZATION = 0.75;
+    private static final double SHRINK_UTILIZATION = 0.25;
+
+    // Filled by the chunk I/O threads
+    private static final LongAdder waitNanos = new LongAdder();
+    private static final LongAdder waitCount = new LongAdder();
+    private static final LongAdder busyNanos = new LongAdder();
+
+    private final int min;
+    private final int max;
+
+    private long lastUpdate = System.nanoTime();
+    private int growStreak;
+    private int shrinkStreak;
+
+    public ChunkIOPoolController(int min, int max) {
+        this.min = min;
+        this.max = Math.max(min, max);
+    }
+
+    public int getMin() {
+        return this.min;
+    }
+
+    public int getMax() {
+        return this.max;
+    }
+
+    /**
+     * Called by a read thread after it finished a task.
+     *
+     * @param wait The time the task waited in the queue, in nanoseconds
+     * @param busy The time the thread spent running the task, in nanoseconds
+     */
+    public static void recordTask(long wait, long busy) {
+        waitNanos.add(wait);
+        waitCount.increment();
+        busyNanos.add(busy);
+    }
+
+    /**
+     * Evaluates the last interval and returns the new number of threads.
+     *
+     * @param threads The current number of threads
+     * @param queued The number of loads currently waiting in the queue
+     * @return The number of threads the pool should have
+     */
+    public int update(int threads, int queued) {
+        long now = System.nanoTime();
+        long elapsed = now - this.lastUpdate;
+        this.lastUpdate = now;
+
+        long count = waitCount.sumThenReset();
+        long wait = waitNanos.sumThenReset();
+        long busy = busyNanos.sumThenReset();
+        if (elapsed <= 0) {
+            return threads;
+        }
+
+        double utilization = (double) busy / ((double) elapsed * Math.max(1, threads));
+        // Without finished loads, loads still waiting in the queue count as waiting the whole interval
+        long meanWait = count > 0 ? wait / count : queued > 0 ? elapsed : 0;
+
+        if (meanWait > ChunkIOSettings.POOL_GROW_WAIT_NANOS && utilization >= GROW_UTILIZATION) {
+            this.shrinkStreak = 0;
+            if (++this.growStreak >= GROW_INTERVALS && threads < this.max) {
+                this.growStreak = 0;
+                return resize(threads, threads + 1, meanWait, utilization);
+            }
+        } else if (meanWait < ChunkIOSettings.POOL_SHRINK_WAIT_NANOS && utilization < SHRINK_UTILIZATION) {
+            this.growStreak = 0;
+            if (++this.shrinkStreak >= SHRINK_INTERVALS && threads > this.min) {
+                this.shrinkStreak = 0;
+                return resize(threads, threads - 1, meanWait, utilization);
+            }
+        } else {
+            this.growStreak = 0;
+            this.shrinkStreak = 0;
+        }
+
+        // Apply changed bounds
+        return Math.min(this.max, Math.max(this.min, threads));
+    }
+
+    private static int resize(int from, int to, long meanWait, double utilization) {
+        PoolResize resize = new PoolResize(System.currentTimeMillis(), from, to, meanWait, utilization);
+        ChunkIOMetrics.recordPoolResize(resize);
+        SpongeImpl.getLogger().debug("Resizing chunk I/O pool: {}", resize);
+        return to;
+    }
+
+    /**
+     * A change of the number of read threads.
+     */
+    public static final class PoolResize {
+
+        private final long time;
+        private final int from;
+        private final int to;
+        private final long meanWait;
+        private final double utilization;
+
+        PoolResize(long time, int from, int to, long meanWait, double utilization) {
+            this.time = time;
+            this.from = from;
+            this.to = to;
+            this.meanWait = meanWait;
+            this.utilization = utilization;
+        }
+
+        /**
+         * Returns the time of the change, in milliseconds since the epoch.
+         */
+        public long getTime() {
+            return this.time;
+        }
+
+        public int getFrom() {
+            return this.from;
+        }
+
+        public int getTo() {
+            return this.to;
+        }
+
+        /**
+         * Returns the average queue wait time of the interval that caused
+         * the change, in nanoseconds.
+         */
+        public long getMeanWait() {
+            return this.meanWait;
+        }
+
+        /**
+         * Returns the utilization of the read threads in the interval that
+         * caused the change, from 0 (idle) to 1 (always busy).
+         */
+        public double getUtilization() {
+            return this.utilization;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d -> %d threads (wait %.2fms, utilization %.0f%%)", this.from, this.to, this.meanWait / 1e6, this.utilization * 100);
+        }
+
+    }
+
+}
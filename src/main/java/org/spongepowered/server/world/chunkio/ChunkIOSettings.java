@@ -0,0 +1,186 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.server.world.chunkio;
+
+/**
+ * Tuning options for the asynchronous chunk I/O, read from system
+ * properties (e.g. {@code -Dsponge.chunkio.prioritize=true}) when the
+ * chunk loader is first used.
+ */
+public final class ChunkIOSettings {
+
+    private static final String PREFIX = "sponge.chunkio.";
+
+    /**
+     * Whether queued chunk loads are ordered by the distance to the nearest
+     * player instead of first-in, first-out.
+     */
+    public static final boolean PRIORITIZE_LOADS = Boolean.getBoolean(PREFIX + "prioritize");
+
+    /**
+     * Whether chunks are written in batches by the {@link AsyncAnvilChunkSaver}
+     * instead of the vanilla file I/O thread.
+     */
+    public static final boolean ASYNC_SAVES = Boolean.getBoolean(PREFIX + "async-save");
+
+    /**
+     * Whether the chunk loader reads region files through a
+     * {@link MappedRegionFileCache} instead of the vanilla region file cache.
+     * Requires {@link #ASYNC_SAVES}: the mapped reads don't take the region
+     * file lock, so chunks must not be read while they are being written,
+     * which only the {@link AsyncAnvilChunkSaver} guarantees.
+     */
+    public static final boolean MAPPED_REGIONS = ASYNC_SAVES && Boolean.getBoolean(PREFIX + "mmap-regions");
+
+    /**
+     * The number of threads decompressing, parsing and fixing the chunks read
+     * by the chunk I/O threads. Defaults to the number of available processors.
+     */
+    public static final int PROCESS_THREADS = Math.max(1, Integer.getInteger(PREFIX + "process-threads", Runtime.getRuntime().availableProcessors()));
+
+    /**
+     * The time in nanoseconds the main thread may spend per tick adding
+     * asynchronously loaded chunks to the world. Chunks over the budget are
+     * carried over to the next tick. 0 disables the limit.
+     */
+    public static final long FINALIZE_BUDGET_NANOS = Long.getLong(PREFIX + "finalize-budget-ns", 0);
+
+    /**
+     * The number of ticks after which a loaded chunk is added to the world
+     * even if the finalization budget is exhausted.
+     */
+    public static final int FINALIZE_MAX_DEFER_TICKS = Integer.getInteger(PREFIX + "finalize-max-defer-ticks", 20);
+
+    /**
+     * The maximum number of asynchronous chunk generation requests that are
+     * processed at the same time, see {@link AsyncChunkGenerator}.
+     */
+    public static final int MAX_GENERATIONS_IN_FLIGHT = Math.max(1, Integer.getInteger(PREFIX + "max-generations", 8));
+
+    /**
+     * The maximum number of chunks generated per tick for asynchronous
+     * chunk generation requests.
+     */
+    public static final int GENERATIONS_PER_TICK = Math.max(1, Integer.getInteger(PREFIX + "generations-per-tick", 2));
+
+    /**
+     * Whether chunks ahead of fast moving players are loaded before they
+     * enter the view distance, see {@link ChunkPrefetcher}.
+     */
+    public static final boolean PREFETCH = Boolean.getBoolean(PREFIX + "prefetch");
+
+    /**
+     * How far ahead (in ticks) the movement of players is projected.
+     */
+    public static final int PREFETCH_TICKS = Integer.getInteger(PREFIX + "prefetch-ticks", 60);
+
+    /**
+     * The maximum number of prefetched chunks per world that are loaded but
+     * weren't claimed by a player yet.
+     */
+    public static final int PREFETCH_MAX_UNCLAIMED = Integer.getInteger(PREFIX + "prefetch-max-unclaimed", 256);
+
+    /**
+     * The maximum size in bytes of the compressed chunk data kept in memory
+     * per world after a chunk was saved, see {@link ChunkNBTCache}. 0
+     * disables the cache.
+     */
+    public static final long CACHE_BYTES = Long.getLong(PREFIX + "cache-size", 0);
+
+    /**
+     * Whether the number of chunk I/O read threads is adjusted based on the
+     * queue wait time and thread utilization instead of the number of
+     * players, see {@link ChunkIOPoolController}.
+     */
+    public static final boolean ADAPTIVE_POOL = Boolean.getBoolean(PREFIX + "adaptive-pool");
+
+    /**
+     * The minimum number of read threads if {@link #ADAPTIVE_POOL} is
+     * enabled.
+     */
+    public static final int MIN_READ_THREADS = Math.max(1, Integer.getInteger(PREFIX + "min-read-threads", 1));
+
+    /**
+     * The maximum number of read threads if {@link #ADAPTIVE_POOL} is
+     * enabled.
+     */
+    public static final int MAX_READ_THREADS = Math.max(MIN_READ_THREADS,
+            Integer.getInteger(PREFIX + "max-read-threads", Runtime.getRuntime().availableProcessors()));
+
+    /**
+     * The average queue wait time in nanoseconds above which a read thread
+     * is added.
+     */
+    public static final long POOL_GROW_WAIT_NANOS = Long.getLong(PREFIX + "pool-grow-wait-ns", 10_000_000);
+
+    /**
+     * The average queue wait time in nanoseconds below which a read thread
+     * is removed. Should be well below {@link #POOL_GROW_WAIT_NANOS}.
+     */
+    public static final long POOL_SHRINK_WAIT_NANOS = Long.getLong(PREFIX + "pool-shrink-wait-ns", 1_000_000);
+
+    /**
+     * The number of region-affine read lanes, see {@link RegionLaneExecutor}.
+     * All reads from a region file are served by the same lane, in the order
+     * of the chunks in the file. This replaces the shared read pool, so
+     * {@link #PRIORITIZE_LOADS} and {@link #ADAPTIVE_POOL} have no effect.
+     * 0 disables the lanes.
+     */
+    public static final int REGION_LANES = Math.max(0, Integer.getInteger(PREFIX + "region-lanes", 0));
+
+    /**
+     * The number of chunks loaded by a {@link ChunkPregenerator} task above
+     * which it waits for its chunks to be unloaded before requesting more
+     * chunks. Chunks loaded by players or other plugins are not counted.
+     */
+    public static final int PREGEN_MAX_LOADED_CHUNKS = Math.max(1, Integer.getInteger(PREFIX + "pregen-max-loaded", 2048));
+
+    /**
+     * The name of the {@link RegionCodec} used to compress chunks when they
+     * are written, e.g. {@code zlib} (vanilla) or {@code lz4}. Chunks
+     * written with other codecs stay readable, see {@link RegionCodecs}.
+     * Note that vanilla can only read gzip and zlib compressed chunks.
+     */
+    public static final String REGION_COMPRESSION = System.getProperty(PREFIX + "region-compression", "zlib");
+
+    /**
+     * The maximum number of chunks per world for which the hash of the last
+     * written data is kept to skip saves that wouldn't change the region
+     * file, see {@link ChunkSaveFilter}. 0 disables the filter.
+     */
+    public static final int SAVE_FILTER_ENTRIES = Math.max(0, Integer.getInteger(PREFIX + "save-filter-entries", 0));
+
+    /**
+     * The time in nanoseconds the main thread may spend per tick on checking
+     * loaded chunks for the chunk GC and unloading chunks, shared by all
+     * worlds, see {@link ChunkGCScheduler}. 0 runs the chunk GC and
+     * unloading per world in full.
+     */
+    public static final long GC_BUDGET_NANOS = Long.getLong(PREFIX + "gc-budget-ns", 0);
+
+    private ChunkIOSettings() {
+    }
+
+}
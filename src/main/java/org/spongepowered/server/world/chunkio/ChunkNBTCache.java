@@ -0,0 +1,199 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.server.world.chunkio;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import net.minecraft.nbt.CompressedStreamTools;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.WorldServer;
+import net.minecraft.world.chunk.storage.AnvilChunkLoader;
+import net.minecraft.world.chunk.storage.IChunkLoader;
+import org.spongepowered.api.event.world.UnloadWorldEvent;
+import org.spongepowered.server.bridge.world.chunkio.AnvilChunkLoaderBridge_Vanilla;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import javax.annotation.Nullable;
+
+/**
+ * Keeps the compressed data of recently saved chunks of a world in memory,
+ * so chunks that are unloaded and loaded again shortly after (e.g. when a
+ * player moves back and forth across a chunk border) don't need to be read
+ * from the region file again.
+ *
+ * <p>Entries are added when a chunk is written to its region file and
+ * contain exactly the written data, so they can never be newer or older than
+ * the region file. An entry is removed once its chunk is loaded again, since
+ * the chunk may be modified from then on and its next save adds a new entry.
+ * The cache is owned by the world's chunk loader and cleared when the world
+ * is unloaded.</p>
+ *
+ * <p>The least recently saved chunks are evicted once the size limit
+ * ({@link ChunkIOSettings#CACHE_BYTES}) is exceeded.</p>
+ */
+public final class ChunkNBTCache {
+
+    private final long maxBytes;
+    private final Long2ObjectLinkedOpenHashMap<byte[]> entries = new Long2ObjectLinkedOpenHashMap<>();
+    private long bytes;
+
+    public ChunkNBTCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public boolean isEnabled() {
+        return this.maxBytes > 0;
+    }
+
+    /**
+     * Compresses and stores the chunk data. Should be called on the thread
+     * writing the chunk, before the chunk is removed from the pending saves.
+     *
+     * @param pos The position of the chunk
+     * @param compound The chunk data written to the region file
+     */
+    public void put(ChunkPos pos, NBTTagCompound compound) {
+        if (!isEnabled()) {
+            return;
+        }
+
+        byte[] data;
+        try {
+            data = compress(compound);
+        } catch (IOException e) {
+            // Can't happen in memory, but never keep outdated data
+            invalidate(pos);
+            return;
+        }
+
+        if (data.length > this.maxBytes) {
+            invalidate(pos);
+            return;
+        }
+
+        synchronized (this) {
+            byte[] previous = this.entries.putAndMoveToLast(ChunkPos.asLong(pos.x, pos.z), data);
+            long delta = data.length - (previous != null ? previous.length : 0);
+
+            while (this.bytes + delta > this.maxBytes) {
+                delta -= this.entries.removeFirst().length;
+            }
+
+            this.bytes += delta;
+            ChunkIOMetrics.addCacheBytes(delta);
+        }
+    }
+
+    /**
+     * Removes the chunk from the cache and returns its data.
+     *
+     * @param x The x coordinate of the chunk
+     * @param z The z coordinate of the chunk
+     * @return A stream with the compressed chunk data, or null if the chunk
+     *     is not cached
+     */
+    @Nullable
+    public DataInputStream take(int x, int z) {
+        if (!isEnabled()) {
+            return null;
+        }
+
+        byte[] data;
+        synchronized (this) {
+            data = this.entries.remove(ChunkPos.asLong(x, z));
+            if (data != null) {
+                this.bytes -= data.length;
+                ChunkIOMetrics.addCacheBytes(-data.length);
+            }
+        }
+
+        if (data == null) {
+            ChunkIOMetrics.recordCacheMiss();
+            return null;
+        }
+
+        ChunkIOMetrics.recordCacheHit();
+        return new DataInputStream(new BufferedInputStream(new InflaterInputStream(new ByteArrayInputStream(data))));
+    }
+
+    /**
+     * Removes the chunk from the cache.
+     *
+     * @param pos The position of the chunk
+     */
+    public synchronized void invalidate(ChunkPos pos) {
+        byte[] data = this.entries.remove(ChunkPos.asLong(pos.x, pos.z));
+        if (data != null) {
+            this.bytes -= data.length;
+            ChunkIOMetrics.addCacheBytes(-data.length);
+        }
+    }
+
+    /**
+     * Removes all chunks from the cache.
+     */
+    public synchronized void clear() {
+        this.entries.clear();
+        ChunkIOMetrics.addCacheBytes(-this.bytes);
+        this.bytes = 0;
+    }
+
+    /**
+     * Releases the cached chunks of an unloaded world.
+     *
+     * @param event The unload event
+     */
+    public static void onWorldUnload(UnloadWorldEvent event) {
+        if (event.isCancelled()) {
+            return;
+        }
+
+        IChunkLoader loader = ((WorldServer) event.getTargetWorld()).getChunkProvider().chunkLoader;
+        if (loader instanceof AnvilChunkLoader) {
+            ((AnvilChunkLoaderBridge_Vanilla) loader).vanillaBridge$getChunkCache().clear();
+        }
+    }
+
+    private static byte[] compress(NBTTagCompound compound) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (DataOutputStream data = new DataOutputStream(new DeflaterOutputStream(out, deflater))) {
+            CompressedStreamTools.write(compound, data);
+        } finally {
+            deflater.end();
+        }
+        return out.toByteArray();
+    }
+
+}
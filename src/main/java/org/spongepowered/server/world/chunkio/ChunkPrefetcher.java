@@ -0,0 +1,216 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.server.world.chunkio;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.server.management.PlayerChunkMap;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.WorldServer;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.gen.ChunkProviderServer;
+import net.minecraftforge.common.chunkio.ChunkIOExecutor;
+import org.spongepowered.server.bridge.world.chunkio.ChunkIOProviderBridge_Vanilla;
+import org.spongepowered.server.mixin.chunkio.ChunkProviderServerAccessor_Vanilla;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import javax.annotation.Nullable;
+
+/**
+ * Loads the chunks ahead of fast moving players (e.g. flying with an elytra
+ * or riding a minecart) before they reach the view distance.
+ *
+ * <p>The heading and speed of each player is measured over a short interval
+ * and projected a few seconds ahead. The chunks at the edge of the view
+ * distance along that path are queued as prefetches in the
+ * {@link ChunkIOExecutor}. When the player turns, prefetches that are no
+ * longer on the path are dropped again. Prefetched chunks that were loaded
+ * but not claimed by a player are unloaded once there are too many.</p>
+ */
+public final class ChunkPrefetcher {
+
+    private static final int INTERVAL = 10; // Ticks between updates
+    private static final double MIN_SPEED = 0.5; // Blocks per tick, faster than sprinting
+    private static final double MAX_SPEED = 5; // Blocks per tick, faster than an elytra with rockets or riptide
+    private static final int SAMPLE_DISTANCE = 8; // Blocks between samples along the path
+    private static final int MAX_CHUNKS_PER_PLAYER = 64;
+
+    private final WorldServer world;
+    private final PlayerChunkMap playerChunkMap;
+    private final Long2ObjectLinkedOpenHashMap<Prefetch> prefetches = new Long2ObjectLinkedOpenHashMap<>(); // In the order they were started
+    private Map<EntityPlayer, double[]> lastPositions = new IdentityHashMap<>();
+    private int ticks;
+
+    public ChunkPrefetcher(WorldServer world, PlayerChunkMap playerChunkMap) {
+        this.world = world;
+        this.playerChunkMap = playerChunkMap;
+    }
+
+    /**
+     * Updates the prefetched chunks, should be called every tick.
+     *
+     * @param viewRadius The view distance in chunks
+     */
+    public void tick(int viewRadius) {
+        if (++this.ticks < INTERVAL) {
+            return;
+        }
+        this.ticks = 0;
+
+        LongSet wanted = new LongOpenHashSet();
+        Map<EntityPlayer, double[]> positions = new IdentityHashMap<>();
+        for (EntityPlayer player : this.world.playerEntities) {
+            positions.put(player, new double[] {player.posX, player.posZ});
+
+            double[] last = this.lastPositions.get(player);
+            if (last != null) {
+                project(player.posX, player.posZ, (player.posX - last[0]) / INTERVAL, (player.posZ - last[1]) / INTERVAL, viewRadius, wanted);
+            }
+        }
+        this.lastPositions = positions;
+
+        int unclaimed = 0;
+        for (ObjectIterator<Long2ObjectLinkedOpenHashMap.Entry<Prefetch>> itr = this.prefetches.long2ObjectEntrySet().fastIterator(); itr.hasNext(); ) {
+            Long2ObjectLinkedOpenHashMap.Entry<Prefetch> entry = itr.next();
+            Prefetch prefetch = entry.getValue();
+            if (this.playerChunkMap.contains(prefetch.x, prefetch.z)) {
+                itr.remove(); // Claimed by a player, vanilla takes over
+            } else if (!wanted.contains(entry.getLongKey())) {
+                prefetch.cancel();
+                itr.remove();
+            } else if (prefetch.chunk != null) {
+                unclaimed++;
+            }
+        }
+
+        // Unload the oldest prefetched chunks, but keep tracking them so they aren't loaded again
+        if (unclaimed > ChunkIOSettings.PREFETCH_MAX_UNCLAIMED) {
+            for (Prefetch prefetch : this.prefetches.values()) {
+                if (prefetch.chunk != null) {
+                    prefetch.unload();
+                    if (--unclaimed <= ChunkIOSettings.PREFETCH_MAX_UNCLAIMED) {
+                        break;
+                    }
+                }
+            }
+        }
+
+        ChunkProviderServer provider = this.world.getChunkProvider();
+        for (long key : wanted) {
+            if (this.prefetches.containsKey(key)) {
+                continue;
+            }
+
+            int x = (int) key;
+            int z = (int) (key >> 32);
+            if (this.playerChunkMap.contains(x, z) || ((ChunkProviderServerAccessor_Vanilla) provider).chunkIOAccessor$getLoadedChunks().containsKey(key)) {
+                continue;
+            }
+
+            Prefetch prefetch = new Prefetch(x, z);
+            this.prefetches.put(key, prefetch);
+            ((ChunkIOProviderBridge_Vanilla) provider).vanillaBridge$prefetchChunk(x, z, prefetch);
+        }
+    }
+
+    /**
+     * Returns the number of chunks that are currently being prefetched or
+     * have been prefetched but not claimed by a player yet.
+     */
+    public int getPrefetchCount() {
+        return this.prefetches.size();
+    }
+
+    private static void project(double x, double z, double velocityX, double velocityZ, int viewRadius, LongSet wanted) {
+        double speed = Math.sqrt(velocityX * velocityX + velocityZ * velocityZ);
+        if (speed < MIN_SPEED || speed > MAX_SPEED) {
+            return; // Not moving fast, or teleported (e.g. a command or respawn)
+        }
+
+        double dirX = velocityX / speed;
+        double dirZ = velocityZ / speed;
+
+        // The chunks at the edge of the view distance along the projected path
+        double edge = viewRadius * 16;
+        double length = speed * ChunkIOSettings.PREFETCH_TICKS;
+        int added = 0;
+        for (double distance = 0; distance <= length && added < MAX_CHUNKS_PER_PLAYER; distance += SAMPLE_DISTANCE) {
+            int chunkX = (int) Math.floor(x + dirX * (edge + distance)) >> 4;
+            int chunkZ = (int) Math.floor(z + dirZ * (edge + distance)) >> 4;
+
+            // Include the neighbours to cover some sideways movement
+            for (int offX = -1; offX <= 1; offX++) {
+                for (int offZ = -1; offZ <= 1; offZ++) {
+                    if (wanted.add(ChunkPos.asLong(chunkX + offX, chunkZ + offZ))) {
+                        added++;
+                    }
+                }
+            }
+        }
+    }
+
+    private final class Prefetch implements Consumer<Chunk> {
+
+        final int x;
+        final int z;
+        private boolean loading = true;
+        @Nullable Chunk chunk;
+
+        Prefetch(int x, int z) {
+            this.x = x;
+            this.z = z;
+        }
+
+        @Override
+        public void accept(@Nullable Chunk chunk) {
+            this.loading = false;
+            this.chunk = chunk;
+        }
+
+        void cancel() {
+            if (this.loading) {
+                ChunkIOExecutor.dropQueuedChunkLoad(ChunkPrefetcher.this.world, this.x, this.z, this);
+                this.loading = false;
+            } else {
+                unload();
+            }
+        }
+
+        void unload() {
+            if (this.chunk != null) {
+                ChunkPrefetcher.this.world.getChunkProvider().queueUnload(this.chunk);
+                this.chunk = null;
+            }
+        }
+
+    }
+
+}
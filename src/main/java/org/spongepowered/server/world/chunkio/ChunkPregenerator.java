@@ -0,0 +1,513 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.server.world.chunkio;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import it.unimi.dsi.fastutil.ints.IntRBTreeSet;
+import it.unimi.dsi.fastutil.ints.IntSortedSet;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import net.minecraft.nbt.CompressedStreamTools;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.WorldServer;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.gen.ChunkProviderServer;
+import org.spongepowered.api.event.world.LoadWorldEvent;
+import org.spongepowered.api.event.world.UnloadWorldEvent;
+import org.spongepowered.common.SpongeImpl;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads or generates all chunks in an area in the background, e.g. to
+ * prepare a map before an event.
+ *
+ * <p>Chunks are requested through the {@link AsyncChunkGenerator}, so
+ * existing chunks are loaded asynchronously and missing chunks are generated
+ * a few per tick. The number of chunks requested at the same time is
+ * adjusted each tick (additive increase, multiplicative decrease) to keep
+ * the tick time below the configured budget. Finished chunks are queued for
+ * unloading (and thereby saved) as soon as no other request needs them.</p>
+ *
+ * <p>The progress is saved in the world's data directory, so a task is
+ * resumed when the world is loaded again (e.g. after a restart).</p>
+ */
+public final class ChunkPregenerator {
+
+    /**
+     * The largest radius in chunks, the number of chunks in the area must
+     * fit into an int.
+     */
+    public static final int MAX_RADIUS = 23169;
+
+    private static final String DATA_FILE = "sponge_pregen.dat";
+    private static final int MAX_WINDOW = 256;
+    private static final int SAVE_INTERVAL_TICKS = 20 * 30;
+    private static final int RATE_SAMPLES = 10; // Seconds
+    private static final int CHUNKS_PER_REQUEST = 4; // The chunk and its neighbours needed to populate it, see unloadAround
+
+    private static final Map<WorldServer, Task> tasks = new IdentityHashMap<>(); // Main thread only
+
+    private ChunkPregenerator() {
+    }
+
+    public enum Shape {
+        /**
+         * Walks outwards from the center, so the area around the center is
+         * available first.
+         */
+        SPIRAL,
+
+        /**
+         * Walks the square row by row, which reads and writes the region
+         * files mostly sequentially.
+         */
+        SQUARE
+    }
+
+    /**
+     * Starts pre-generating a square area of chunks around a center chunk.
+     * A task that is already running for the world is replaced.
+     *
+     * <p>Must be called on the main thread.</p>
+     *
+     * @param world The world to generate chunks in
+     * @param centerX The x coordinate of the center chunk
+     * @param centerZ The z coordinate of the center chunk
+     * @param radius The radius in chunks, 0 only generates the center chunk,
+     *     at most {@link #MAX_RADIUS}
+     * @param shape The order in which the chunks are generated
+     * @param tickBudgetNanos The tick time in nanoseconds above which the
+     *     generation is slowed down, e.g. 50ms to keep 20 TPS
+     * @return The new task
+     */
+    public static Task start(WorldServer world, int centerX, int centerZ, int radius, Shape shape, long tickBudgetNanos) {
+        Task previous = tasks.remove(world);
+        if (previous != null) {
+            previous.finish(false);
+        }
+
+        Task task = new Task(world, centerX, centerZ, radius, shape, tickBudgetNanos, 0);
+        tasks.put(world, task);
+        task.save();
+        return task;
+    }
+
+    /**
+     * Cancels the task running for the world.
+     *
+     * @param world The world
+     * @return True if a task was running
+     */
+    public static boolean cancel(WorldServer world) {
+        Task task = tasks.remove(world);
+        if (task == null) {
+            return false;
+        }
+
+        task.finish(false);
+        return true;
+    }
+
+    public static Optional<Task> getTask(WorldServer world) {
+        return Optional.ofNullable(tasks.get(world));
+    }
+
+    public static Collection<Task> getTasks() {
+        return Collections.unmodifiableCollection(tasks.values());
+    }
+
+    public static void tick() {
+        if (tasks.isEmpty()) {
+            return;
+        }
+
+        MinecraftServer server = SpongeImpl.getServer();
+        int tick = server.getTickCounter();
+        long lastTickNanos = server.tickTimeArray[(tick + 99) % 100]; // The previous tick
+
+        tasks.values().removeIf(task -> task.tick(tick, lastTickNanos));
+    }
+
+    /**
+     * Resumes the saved task of a world.
+     *
+     * @param event The load event
+     */
+    public static void onWorldLoad(LoadWorldEvent event) {
+        WorldServer world = (WorldServer) event.getTargetWorld();
+        File file = getDataFile(world);
+        if (!file.isFile()) {
+            return;
+        }
+
+        try {
+            NBTTagCompound compound = CompressedStreamTools.read(file);
+            if (compound == null) {
+                return;
+            }
+
+            Task task = new Task(world, compound.getInteger("CenterX"), compound.getInteger("CenterZ"), compound.getInteger("Radius"),
+                    Shape.valueOf(compound.getString("Shape")), compound.getLong("TickBudget"), compound.getInteger("Index"));
+            tasks.put(world, task);
+            SpongeImpl.getLogger().info("Resuming chunk pre-generation in {} at {}/{} chunks", world.getWorldInfo().getWorldName(),
+                    task.getCompleted(), task.getTotal());
+        } catch (IOException | IllegalArgumentException e) {
+            SpongeImpl.getLogger().error("Failed to resume chunk pre-generation in {}", world.getWorldInfo().getWorldName(), e);
+        }
+    }
+
+    /**
+     * Saves the progress of the world's task and stops it until the world
+     * is loaded again.
+     *
+     * @param event The unload event
+     */
+    public static void onWorldUnload(UnloadWorldEvent event) {
+        if (event.isCancelled()) {
+            return;
+        }
+
+        Task task = tasks.remove((WorldServer) event.getTargetWorld());
+        if (task != null) {
+            task.save();
+        }
+    }
+
+    static File getDataFile(WorldServer world) {
+        return new File(new File(world.getSaveHandler().getWorldDirectory(), "data"), DATA_FILE);
+    }
+
+    /**
+     * Iterates the chunks of the area in the order of the {@link Shape}.
+     */
+    private static final class Walk {
+
+        private final Shape shape;
+        private final int radius;
+        private final int total;
+        private int index;
+
+        // Spiral state, relative to the center
+        private int x;
+        private int z;
+        private int dx;
+        private int dz = -1;
+
+        Walk(Shape shape, int radius) {
+            checkArgument(radius >= 0 && radius <= MAX_RADIUS, "Radius out of range: %s", radius);
+            this.shape = shape;
+            this.radius = radius;
+            int size = 2 * radius + 1;
+            this.total = size * size;
+        }
+
+        boolean hasNext() {
+            return this.index < this.total;
+        }
+
+        // Returns the position relative to the center
+        long next() {
+            long pos;
+            if (this.shape == Shape.SQUARE) {
+                int size = 2 * this.radius + 1;
+                pos = ChunkPos.asLong(this.index % size - this.radius, this.index / size - this.radius);
+            } else {
+                pos = ChunkPos.asLong(this.x, this.z);
+                if (this.x == this.z || (this.x < 0 && this.x == -this.z) || (this.x > 0 && this.x == 1 - this.z)) {
+                    int t = this.dx;
+                    this.dx = -this.dz;
+                    this.dz = t;
+                }
+                this.x += this.dx;
+                this.z += this.dz;
+            }
+
+            this.index++;
+            return pos;
+        }
+
+    }
+
+    /**
+     * A running pre-generation of a world.
+     */
+    public static final class Task {
+
+        private final WorldServer world;
+        private final ChunkProviderServer provider;
+        private final int centerX;
+        private final int centerZ;
+        private final int radius;
+        private final Shape shape;
+        private final long tickBudgetNanos;
+        private final Walk walk;
+
+        private final IntSortedSet inFlight = new IntRBTreeSet(); // Walk indices
+        private final LongSet inFlightPositions = new LongOpenHashSet();
+        private final LongSet unloading = new LongOpenHashSet(); // Queued for unload, but still loaded
+        private int window = 1;
+        private int completed;
+        private int failed;
+        private final long startTime = System.nanoTime();
+
+        private final long[] rateSamples = new long[RATE_SAMPLES];
+        private final long[] rateTimes = new long[RATE_SAMPLES];
+        private int rateSample;
+
+        Task(WorldServer world, int centerX, int centerZ, int radius, Shape shape, long tickBudgetNanos, int index) {
+            this.world = world;
+            this.provider = world.getChunkProvider();
+            this.centerX = centerX;
+            this.centerZ = centerZ;
+            this.radius = radius;
+            this.shape = shape;
+            this.tickBudgetNanos = tickBudgetNanos;
+            this.walk = new Walk(shape, radius);
+
+            // Skip the chunks that were done before the task was saved
+            while (this.walk.hasNext() && this.walk.index < index) {
+                this.walk.next();
+            }
+            this.completed = this.walk.index;
+        }
+
+        public WorldServer getWorld() {
+            return this.world;
+        }
+
+        public int getCenterX() {
+            return this.centerX;
+        }
+
+        public int getCenterZ() {
+            return this.centerZ;
+        }
+
+        public int getRadius() {
+            return this.radius;
+        }
+
+        public Shape getShape() {
+            return this.shape;
+        }
+
+        public long getTickBudget(TimeUnit unit) {
+            return unit.convert(this.tickBudgetNanos, TimeUnit.NANOSECONDS);
+        }
+
+        public int getTotal() {
+            return this.walk.total;
+        }
+
+        /**
+         * Returns the number of chunks that have been loaded or generated,
+         * including the ones done before the task was resumed.
+         */
+        public int getCompleted() {
+            return this.completed;
+        }
+
+        /**
+         * Returns the number of chunks that could not be generated.
+         */
+        public int getFailed() {
+            return this.failed;
+        }
+
+        /**
+         * Returns the number of chunks requested at the same time.
+         */
+        public int getWindow() {
+            return this.window;
+        }
+
+        /**
+         * Returns the number of chunks completed per second over the last
+         * few seconds.
+         */
+        public double getChunksPerSecond() {
+            int oldest = (this.rateSample + 1) % RATE_SAMPLES;
+            int newest = this.rateSample;
+            long elapsed = this.rateTimes[newest] - this.rateTimes[oldest];
+            if (this.rateTimes[oldest] == 0 || elapsed <= 0) {
+                // Not enough samples yet, use the average since the start
+                elapsed = System.nanoTime() - this.startTime;
+                return elapsed <= 0 ? 0 : this.completed * 1e9 / elapsed;
+            }
+            return (this.rateSamples[newest] - this.rateSamples[oldest]) * 1e9 / elapsed;
+        }
+
+        // Returns true once the task is done
+        boolean tick(int tick, long lastTickNanos) {
+            if (lastTickNanos > this.tickBudgetNanos) {
+                this.window = Math.max(1, this.window / 2);
+            } else if (this.inFlight.size() >= this.window) {
+                this.window = Math.min(MAX_WINDOW, this.window + 1);
+            }
+
+            // Bound the number of chunks loaded by this task, the chunks are unloaded by the chunk provider tick
+            int loaded = getLoadedChunks();
+            while (loaded < ChunkIOSettings.PREGEN_MAX_LOADED_CHUNKS && this.inFlight.size() < this.window && this.walk.hasNext()) {
+                int index = this.walk.index;
+                long relative = this.walk.next();
+                int x = this.centerX + (int) relative;
+                int z = this.centerZ + (int) (relative >> 32);
+                request(index, x, z);
+                loaded += CHUNKS_PER_REQUEST;
+            }
+
+            if (tick % 20 == 0) {
+                this.rateSample = (this.rateSample + 1) % RATE_SAMPLES;
+                this.rateSamples[this.rateSample] = this.completed;
+                this.rateTimes[this.rateSample] = System.nanoTime();
+            }
+
+            if (!this.walk.hasNext() && this.inFlight.isEmpty()) {
+                finish(true);
+                return true;
+            }
+
+            if (tick % SAVE_INTERVAL_TICKS == 0) {
+                save();
+            }
+            return false;
+        }
+
+        private int getLoadedChunks() {
+            for (LongIterator itr = this.unloading.iterator(); itr.hasNext(); ) {
+                long pos = itr.nextLong();
+                Chunk chunk = this.provider.getLoadedChunk((int) pos, (int) (pos >> 32));
+                if (chunk == null || !chunk.unloadQueued) {
+                    itr.remove(); // Unloaded, or used by something else again
+                }
+            }
+            return this.inFlight.size() * CHUNKS_PER_REQUEST + this.unloading.size();
+        }
+
+        private void request(int index, int x, int z) {
+            this.inFlight.add(index);
+            this.inFlightPositions.add(ChunkPos.asLong(x, z));
+            AsyncChunkGenerator.loadOrGenerate(this.provider, x, z).whenComplete((chunk, error) -> {
+                // Completed on the main thread
+                this.inFlight.remove(index);
+                this.inFlightPositions.remove(ChunkPos.asLong(x, z));
+                this.completed++;
+                if (error != null) {
+                    this.failed++;
+                    SpongeImpl.getLogger().error("Failed to pre-generate chunk in {} @ ({}, {})", this.world.getWorldInfo().getWorldName(), x, z,
+                            error);
+                }
+
+                unloadAround(x, z);
+            });
+        }
+
+        // The request for (x, z) loaded the chunk and its neighbours in positive direction, see AsyncChunkGenerator
+        private void unloadAround(int x, int z) {
+            for (int dx = 0; dx <= 1; dx++) {
+                for (int dz = 0; dz <= 1; dz++) {
+                    if (!isNeeded(x + dx, z + dz)) {
+                        unload(x + dx, z + dz);
+                    }
+                }
+            }
+        }
+
+        // Checks if a chunk is still needed to populate another requested chunk
+        private boolean isNeeded(int x, int z) {
+            for (int dx = 0; dx <= 1; dx++) {
+                for (int dz = 0; dz <= 1; dz++) {
+                    if (this.inFlightPositions.contains(ChunkPos.asLong(x - dx, z - dz))) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        private void unload(int x, int z) {
+            if (this.world.getPlayerChunkMap().contains(x, z)) {
+                return;
+            }
+
+            Chunk chunk = this.provider.getLoadedChunk(x, z);
+            if (chunk != null) {
+                this.provider.queueUnload(chunk);
+                if (chunk.unloadQueued) {
+                    this.unloading.add(ChunkPos.asLong(x, z));
+                }
+            }
+        }
+
+        /**
+         * Saves the progress, so the task can be resumed after a restart.
+         */
+        void save() {
+            NBTTagCompound compound = new NBTTagCompound();
+            compound.setInteger("CenterX", this.centerX);
+            compound.setInteger("CenterZ", this.centerZ);
+            compound.setInteger("Radius", this.radius);
+            compound.setString("Shape", this.shape.name());
+            compound.setLong("TickBudget", this.tickBudgetNanos);
+            // Chunks in flight are requested again when resuming
+            compound.setInteger("Index", this.inFlight.isEmpty() ? this.walk.index : this.inFlight.firstInt());
+
+            File file = getDataFile(this.world);
+            try {
+                file.getParentFile().mkdirs();
+                CompressedStreamTools.safeWrite(compound, file);
+            } catch (IOException e) {
+                SpongeImpl.getLogger().error("Failed to save chunk pre-generation progress of {}", this.world.getWorldInfo().getWorldName(), e);
+            }
+        }
+
+        void finish(boolean done) {
+            File file = getDataFile(this.world);
+            if (file.exists() && !file.delete()) {
+                SpongeImpl.getLogger().warn("Failed to delete {}", file);
+            }
+
+            if (done) {
+                SpongeImpl.getLogger().info("Finished chunk pre-generation in {}: {} chunks ({} failed) in {}s",
+                        this.world.getWorldInfo().getWorldName(), this.completed, this.failed,
+                        TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - this.startTime));
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,223 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.server.world.chunkio;
+
+import it.unimi.dsi.fastutil.longs.Long2LongLinkedOpenHashMap;
+import net.minecraft.nbt.CompressedStreamTools;
+import net.minecraft.nbt.NBTBase;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.WorldServer;
+import net.minecraft.world.chunk.storage.AnvilChunkLoader;
+import net.minecraft.world.chunk.storage.IChunkLoader;
+import org.spongepowered.api.event.world.UnloadWorldEvent;
+import org.spongepowered.server.bridge.world.chunkio.AnvilChunkLoaderBridge_Vanilla;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Skips writing chunks whose data didn't change since they were last
+ * written to the region file.
+ *
+ * <p>Chunks are marked dirty whenever an entity enters or leaves them (see
+ * {@code ChunkMixin_AssuredChangesMarkedDirty}), so chunks that mobs merely
+ * walk through are serialized again on every save. The filter keeps a 64-bit
+ * hash of the last data written for each chunk and drops saves that would
+ * write exactly the same data again. The chunks are still serialized, so
+ * the data on disk always matches the last save of the chunk; only the
+ * redundant region write is avoided.</p>
+ *
+ * <p>The {@code LastUpdate} time changes on every save and is excluded from
+ * the hash. Hashes are only recorded after a successful write, and are
+ * removed before a changed chunk is written. The least recently written chunks are
+ * forgotten once {@link ChunkIOSettings#SAVE_FILTER_ENTRIES} is exceeded,
+ * their next save is always written.</p>
+ */
+public final class ChunkSaveFilter {
+
+    private final int maxEntries;
+    private final Long2LongLinkedOpenHashMap hashes = new Long2LongLinkedOpenHashMap();
+
+    public ChunkSaveFilter(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public boolean isEnabled() {
+        return this.maxEntries > 0;
+    }
+
+    /**
+     * Checks if the chunk data is identical to the data last written to the
+     * region file. Should be called on the thread writing the chunk.
+     *
+     * @param pos The position of the chunk
+     * @param compound The serialized chunk
+     * @return True if writing the chunk can be skipped
+     */
+    public boolean isUnchanged(ChunkPos pos, NBTTagCompound compound) {
+        if (!isEnabled()) {
+            return false;
+        }
+
+        long hash = hash(compound);
+        synchronized (this) {
+            long key = ChunkPos.asLong(pos.x, pos.z);
+            if (this.hashes.containsKey(key) && this.hashes.get(key) == hash) {
+                ChunkIOMetrics.recordSkippedSave();
+                return true;
+            }
+
+            // The region file is about to change, don't trust the old hash if the write fails
+            this.hashes.remove(key);
+        }
+        return false;
+    }
+
+    /**
+     * Records the data written for a chunk. Must only be called after the
+     * data was written to the region file successfully.
+     *
+     * @param pos The position of the chunk
+     * @param compound The data written to the region file
+     */
+    public void written(ChunkPos pos, NBTTagCompound compound) {
+        if (!isEnabled()) {
+            return;
+        }
+
+        long hash = hash(compound);
+        synchronized (this) {
+            this.hashes.putAndMoveToLast(ChunkPos.asLong(pos.x, pos.z), hash);
+            while (this.hashes.size() > this.maxEntries) {
+                this.hashes.removeFirstLong();
+            }
+        }
+    }
+
+    /**
+     * Forgets the chunk, so its next save is written in any case. Called if
+     * writing the chunk failed.
+     *
+     * @param pos The position of the chunk
+     */
+    public synchronized void invalidate(ChunkPos pos) {
+        this.hashes.remove(ChunkPos.asLong(pos.x, pos.z));
+    }
+
+    public synchronized void clear() {
+        this.hashes.clear();
+    }
+
+    /**
+     * Forgets the chunks of an unloaded world, its region files might be
+     * replaced before it is loaded again.
+     *
+     * @param event The unload event
+     */
+    public static void onWorldUnload(UnloadWorldEvent event) {
+        if (event.isCancelled()) {
+            return;
+        }
+
+        IChunkLoader loader = ((WorldServer) event.getTargetWorld()).getChunkProvider().chunkLoader;
+        if (loader instanceof AnvilChunkLoader) {
+            ((AnvilChunkLoaderBridge_Vanilla) loader).vanillaBridge$getSaveFilter().clear();
+        }
+    }
+
+    static long hash(NBTTagCompound compound) {
+        NBTTagCompound level = compound.getCompoundTag("Level");
+
+        // Shallow copies without the save time, the tags themselves are shared and not modified
+        NBTTagCompound hashedLevel = new NBTTagCompound();
+        for (String key : level.getKeySet()) {
+            if (!key.equals("LastUpdate")) {
+                hashedLevel.setTag(key, level.getTag(key));
+            }
+        }
+
+        NBTTagCompound hashed = new NBTTagCompound();
+        for (String key : compound.getKeySet()) {
+            NBTBase tag = compound.getTag(key);
+            hashed.setTag(key, key.equals("Level") ? hashedLevel : tag);
+        }
+
+        HashingOutputStream out = new HashingOutputStream();
+        try {
+            CompressedStreamTools.write(hashed, new DataOutputStream(out));
+        } catch (IOException e) {
+            throw new AssertionError(e); // Can't happen, nothing is written
+        }
+        return out.getHash();
+    }
+
+    /**
+     * Computes a 64-bit hash of the written bytes, processing 8 bytes at a
+     * time for the large block and light arrays.
+     */
+    private static final class HashingOutputStream extends OutputStream {
+
+        private static final long PRIME_1 = 0x9E3779B185EBCA87L;
+        private static final long PRIME_2 = 0xC2B2AE3D27D4EB4FL;
+
+        private long hash = 0x27D4EB2F165667C5L;
+        private long length;
+
+        @Override
+        public void write(int b) {
+            this.hash = (this.hash ^ (b & 0xFF)) * PRIME_1;
+            this.length++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            int end = off + len;
+            long hash = this.hash;
+            for (; off + 8 <= end; off += 8) {
+                long k = (b[off] & 0xFFL) | (b[off + 1] & 0xFFL) << 8 | (b[off + 2] & 0xFFL) << 16 | (b[off + 3] & 0xFFL) << 24
+                        | (b[off + 4] & 0xFFL) << 32 | (b[off + 5] & 0xFFL) << 40 | (b[off + 6] & 0xFFL) << 48 | (b[off + 7] & 0xFFL) << 56;
+                hash = Long.rotateLeft(hash ^ (k * PRIME_2), 31) * PRIME_1;
+            }
+            for (; off < end; off++) {
+                hash = (hash ^ (b[off] & 0xFF)) * PRIME_1;
+            }
+            this.hash = hash;
+            this.length += len;
+        }
+
+        long getHash() {
+            // Final avalanche, includes the length to separate different splits of the same bytes
+            long hash = this.hash ^ this.length;
+            hash ^= hash >>> 33;
+            hash *= PRIME_2;
+            hash ^= hash >>> 29;
+            return hash;
+        }
+
+    }
+
+}
@@ -0,0 +1,375 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.server.world.chunkio;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import javax.annotation.Nullable;
+
+/**
+ * Compresses chunks with a pure Java implementation of the LZ4 block format.
+ *
+ * <p>LZ4 only replaces repeated byte sequences and doesn't use entropy
+ * coding, so it produces larger files than zlib, but compresses several
+ * times and decompresses about an order of magnitude faster. The chunk data
+ * is stored as the length of the decompressed data (a 32-bit integer)
+ * followed by a single LZ4 block.</p>
+ */
+final class Lz4RegionCodec implements RegionCodec {
+
+    /**
+     * Outside of the compression types used by vanilla, including the
+     * types added in later versions.
+     */
+    static final int ID = 126;
+
+    private static final int MIN_MATCH = 4;
+    private static final int LAST_LITERALS = 5; // The last bytes of a block are always literals
+    private static final int MF_LIMIT = 12; // The last match must start before this many bytes from the end
+    private static final int MAX_DISTANCE = 0xFFFF;
+    private static final int HASH_LOG = 14;
+    private static final int SKIP_TRIGGER = 6; // Speed up on incompressible data
+
+    /**
+     * The largest decompressed length accepted when reading, to avoid
+     * allocating huge arrays for corrupt chunks. Chunks are at most 1 MiB
+     * in the region file, and chunk data doesn't compress better than
+     * 1:64 in practice.
+     */
+    static final int MAX_DECOMPRESSED_LENGTH = 64 << 20;
+    private static final int MAX_RATIO = 255; // Each length byte can encode at most 255 bytes
+
+    private static final ThreadLocal<int[]> hashTable = ThreadLocal.withInitial(() -> new int[1 << HASH_LOG]);
+
+    @Override
+    public int getId() {
+        return ID;
+    }
+
+    @Override
+    public String getName() {
+        return "lz4";
+    }
+
+    @Override
+    public InputStream decompress(InputStream in) {
+        return new BlockInputStream(in);
+    }
+
+    @Override
+    public OutputStream compress(OutputStream out) {
+        return new BlockOutputStream(out);
+    }
+
+    static int maxCompressedLength(int length) {
+        return length + length / 255 + 16;
+    }
+
+    /**
+     * Compresses the data into a single LZ4 block.
+     *
+     * @param src The data to compress
+     * @param srcLength The number of bytes to compress
+     * @param dest The output array, at least {@link #maxCompressedLength(int)} bytes
+     * @return The number of bytes written to the output array
+     */
+    static int compress(byte[] src, int srcLength, byte[] dest) {
+        int anchor = 0;
+        int op = 0;
+
+        if (srcLength >= MF_LIMIT + 1) {
+            int[] table = hashTable.get();
+            Arrays.fill(table, 0); // Stores the position + 1, 0 means empty
+
+            int matchLimit = srcLength - LAST_LITERALS;
+            int mfLimit = srcLength - MF_LIMIT;
+            int ip = 0;
+
+            while (ip < mfLimit) {
+                int sequence = readInt(src, ip);
+                int hash = hash(sequence);
+                int ref = table[hash] - 1;
+                table[hash] = ip + 1;
+
+                if (ref < 0 || ip - ref > MAX_DISTANCE || readInt(src, ref) != sequence) {
+                    ip += 1 + ((ip - anchor) >>> SKIP_TRIGGER);
+                    continue;
+                }
+
+                // Extend the match backwards over the pending literals
+                while (ip > anchor && ref > 0 && src[ip - 1] == src[ref - 1]) {
+                    ip--;
+                    ref--;
+                }
+
+                int length = MIN_MATCH;
+                while (ip + length < matchLimit && src[ip + length] == src[ref + length]) {
+                    length++;
+                }
+
+                op = writeSequence(dest, op, src, anchor, ip - anchor, ip - ref, length);
+                ip += length;
+                anchor = ip;
+
+                if (ip - 2 < mfLimit) {
+                    table[hash(readInt(src, ip - 2))] = ip - 2 + 1;
+                }
+            }
+        }
+
+        // Last literals
+        int literals = srcLength - anchor;
+        int token = op++;
+        if (literals >= 15) {
+            dest[token] = (byte) 0xF0;
+            op = writeLength(dest, op, literals - 15);
+        } else {
+            dest[token] = (byte) (literals << 4);
+        }
+        System.arraycopy(src, anchor, dest, op, literals);
+        return op + literals;
+    }
+
+    /**
+     * Decompresses a single LZ4 block.
+     *
+     * @param src The compressed block
+     * @param srcLength The length of the compressed block
+     * @param dest The output array, exactly as long as the decompressed data
+     * @throws IOException If the block is malformed
+     */
+    static void decompress(byte[] src, int srcLength, byte[] dest) throws IOException {
+        int ip = 0;
+        int op = 0;
+
+        try {
+            while (ip < srcLength) {
+                int token = src[ip++] & 0xFF;
+
+                int literals = token >>> 4;
+                if (literals == 15) {
+                    int b;
+                    do {
+                        b = src[ip++] & 0xFF;
+                        literals += b;
+                    } while (b == 255);
+                }
+
+                if (literals > srcLength - ip || literals > dest.length - op) {
+                    throw new IOException("Malformed LZ4 block: literals out of bounds");
+                }
+                System.arraycopy(src, ip, dest, op, literals);
+                ip += literals;
+                op += literals;
+
+                if (ip == srcLength) {
+                    break; // The last sequence has no match
+                }
+
+                int offset = (src[ip] & 0xFF) | (src[ip + 1] & 0xFF) << 8;
+                ip += 2;
+                if (offset == 0 || offset > op) {
+                    throw new IOException("Malformed LZ4 block: invalid offset " + offset);
+                }
+
+                int length = token & 0xF;
+                if (length == 15) {
+                    int b;
+                    do {
+                        b = src[ip++] & 0xFF;
+                        length += b;
+                    } while (b == 255);
+                }
+                length += MIN_MATCH;
+
+                if (length > dest.length - op) {
+                    throw new IOException("Malformed LZ4 block: match out of bounds");
+                }
+
+                int ref = op - offset;
+                if (offset >= length) {
+                    System.arraycopy(dest, ref, dest, op, length);
+                } else {
+                    // Overlapping match, repeats the last offset bytes
+                    for (int i = 0; i < length; i++) {
+                        dest[op + i] = dest[ref + i];
+                    }
+                }
+                op += length;
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Malformed LZ4 block: truncated", e);
+        }
+
+        if (op != dest.length) {
+            throw new IOException("Malformed LZ4 block: expected " + dest.length + " bytes, got " + op);
+        }
+    }
+
+    private static int writeSequence(byte[] dest, int op, byte[] src, int literalStart, int literals, int offset, int length) {
+        int token = op++;
+        int matchLength = length - MIN_MATCH;
+
+        if (literals >= 15) {
+            op = writeLength(dest, op, literals - 15);
+        }
+        System.arraycopy(src, literalStart, dest, op, literals);
+        op += literals;
+
+        dest[op++] = (byte) offset;
+        dest[op++] = (byte) (offset >>> 8);
+
+        if (matchLength >= 15) {
+            op = writeLength(dest, op, matchLength - 15);
+        }
+
+        dest[token] = (byte) (Math.min(literals, 15) << 4 | Math.min(matchLength, 15));
+        return op;
+    }
+
+    private static int writeLength(byte[] dest, int op, int length) {
+        while (length >= 255) {
+            dest[op++] = (byte) 255;
+            length -= 255;
+        }
+        dest[op++] = (byte) length;
+        return op;
+    }
+
+    private static int readInt(byte[] src, int i) {
+        return (src[i] & 0xFF) | (src[i + 1] & 0xFF) << 8 | (src[i + 2] & 0xFF) << 16 | (src[i + 3] & 0xFF) << 24;
+    }
+
+    private static int hash(int sequence) {
+        return (sequence * -1640531535) >>> (32 - HASH_LOG);
+    }
+
+    /**
+     * Reads the block and decompresses it on first use, so opening the
+     * stream on the I/O thread doesn't spend any time on decompression.
+     */
+    private static final class BlockInputStream extends InputStream {
+
+        private final InputStream source;
+        @Nullable private InputStream block;
+
+        BlockInputStream(InputStream source) {
+            this.source = source;
+        }
+
+        private InputStream getBlock() throws IOException {
+            InputStream block = this.block;
+            if (block == null) {
+                DataInputStream data = new DataInputStream(this.source);
+                int length = data.readInt();
+                if (length < 0 || length > MAX_DECOMPRESSED_LENGTH) {
+                    throw new IOException("Invalid decompressed length: " + length);
+                }
+
+                ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(32, this.source.available()));
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = this.source.read(buffer)) != -1) {
+                    compressed.write(buffer, 0, read);
+                }
+
+                if (length > (long) compressed.size() * MAX_RATIO) {
+                    throw new IOException("Invalid decompressed length: " + length + " for " + compressed.size() + " bytes");
+                }
+
+                byte[] result = new byte[length];
+                decompress(compressed.toByteArray(), compressed.size(), result);
+                block = new ByteArrayInputStream(result);
+                this.block = block;
+            }
+            return block;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return getBlock().read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return getBlock().read(b, off, len);
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            return getBlock().skip(n);
+        }
+
+        @Override
+        public int available() throws IOException {
+            return this.block != null ? this.block.available() : 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.source.close();
+        }
+
+    }
+
+    /**
+     * Buffers the chunk data and writes it as a single block once closed.
+     */
+    private static final class BlockOutputStream extends ByteArrayOutputStream {
+
+        private final OutputStream target;
+        private boolean closed;
+
+        BlockOutputStream(OutputStream target) {
+            super(8192);
+            this.target = target;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+
+            byte[] compressed = new byte[maxCompressedLength(this.count)];
+            int length = compress(this.buf, this.count, compressed);
+
+            try (DataOutputStream out = new DataOutputStream(this.target)) {
+                out.writeInt(this.count);
+                out.write(compressed, 0, length);
+            }
+        }
+
+    }
+
+}
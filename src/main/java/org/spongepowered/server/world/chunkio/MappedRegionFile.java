@@ -0,0 +1,175 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.server.world.chunkio;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import javax.annotation.Nullable;
+
+/**
+ * A read-only view of a region file backed by a {@link MappedByteBuffer}.
+ *
+ * <p>Unlike {@link net.minecraft.world.chunk.storage.RegionFile}, reads don't
+ * share a file pointer, so any number of threads can read chunks from the
+ * same region at the same time without locking. The chunk data is decompressed
+ * directly from the mapping without copying it into a byte array first.</p>
+ *
+ * <p>Writes still go through the vanilla region file and are visible through
+ * the mapping. If the region file grew past the mapped size the file is
+ * mapped again. A chunk may be rewritten in place, so it must not be read
+ * while it is being written. The {@link AsyncAnvilChunkSaver} serves chunks
+ * being written from memory instead.</p>
+ */
+final class MappedRegionFile implements AutoCloseable {
+
+    private static final int SECTOR_BYTES = 4096;
+    private static final int HEADER_BYTES = SECTOR_BYTES * 2; // Offsets and timestamps
+
+    private final FileChannel channel;
+    private volatile MappedByteBuffer buffer;
+
+    MappedRegionFile(File file) throws IOException {
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        this.buffer = this.channel.map(FileChannel.MapMode.READ_ONLY, 0, this.channel.size());
+    }
+
+    /**
+     * Returns a stream with the decompressed data of the chunk.
+     *
+     * @param x The x coordinate of the chunk within the region (0-31)
+     * @param z The z coordinate of the chunk within the region (0-31)
+     * @return The data stream, or null if the chunk doesn't exist
+     * @throws IOException If the region file can't be mapped
+     * @throws java.nio.channels.ClosedChannelException If the region file
+     *     was closed concurrently
+     */
+    @Nullable
+    DataInputStream getChunkInputStream(int x, int z) throws IOException {
+        ByteBuffer buffer = this.buffer;
+        if (buffer.capacity() < HEADER_BYTES) {
+            buffer = remap(HEADER_BYTES); // The file may have been mapped while it was created
+            if (buffer.capacity() < HEADER_BYTES) {
+                return null; // Empty or truncated region
+            }
+        }
+
+        int offset = buffer.getInt((x + z * 32) * 4);
+        if (offset == 0) {
+            return null;
+        }
+
+        long start = (long) (offset >>> 8) * SECTOR_BYTES;
+        long end = start + (long) (offset & 0xFF) * SECTOR_BYTES;
+        if (end > buffer.capacity()) {
+            buffer = remap(end);
+            if (end > buffer.capacity()) {
+                return null; // Same as vanilla, invalid sector
+            }
+        }
+
+        int length = buffer.getInt((int) start);
+        if (length <= 1 || start + 4 + length > end) {
+            return null;
+        }
+
+        byte version = buffer.get((int) start + 4);
+
+        // Slice the chunk payload out of the mapping, the position is local to the duplicate
+        ByteBuffer data = buffer.duplicate();
+        data.position((int) start + 5);
+        data.limit((int) start + 4 + length);
+
+        return RegionCodecs.decompress(version, new ByteBufferInputStream(data));
+    }
+
+    private synchronized ByteBuffer remap(long size) throws IOException {
+        MappedByteBuffer buffer = this.buffer;
+        if (buffer.capacity() < size) {
+            long fileSize = this.channel.size();
+            if (fileSize > buffer.capacity()) {
+                buffer = this.channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+                this.buffer = buffer;
+            }
+        }
+        return buffer;
+    }
+
+    @Override
+    public void close() throws IOException {
+        // The mapping itself stays valid until the buffer is garbage collected
+        this.channel.close();
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return this.buffer.hasRemaining() ? this.buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+
+            int remaining = this.buffer.remaining();
+            if (remaining == 0) {
+                return -1;
+            }
+
+            len = Math.min(len, remaining);
+            this.buffer.get(b, off, len);
+            return len;
+        }
+
+        @Override
+        public long skip(long n) {
+            int skipped = (int) Math.max(0, Math.min(n, this.buffer.remaining()));
+            this.buffer.position(this.buffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return this.buffer.remaining();
+        }
+
+    }
+
+}
@@ -0,0 +1,125 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.server.world.chunkio;
+
+import org.spongepowered.common.SpongeImpl;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.Nullable;
+
+/**
+ * Caches the {@link MappedRegionFile}s used by the asynchronous chunk loader.
+ * The equivalent of {@link net.minecraft.world.chunk.storage.RegionFileCache}
+ * for reading.
+ */
+public final class MappedRegionFileCache {
+
+    private static final Map<File, MappedRegionFile> regions = new ConcurrentHashMap<>();
+
+    private MappedRegionFileCache() {
+    }
+
+    /**
+     * Returns a stream with the decompressed data of the chunk.
+     *
+     * <p>This is safe to call from multiple threads at the same time.</p>
+     *
+     * @param worldDir The directory containing the region directory
+     * @param x The x coordinate of the chunk
+     * @param z The z coordinate of the chunk
+     * @return The data stream, or null if the chunk doesn't exist
+     * @throws IOException If an error occurs while mapping the region file
+     */
+    @Nullable
+    public static DataInputStream getChunkInputStream(File worldDir, int x, int z) throws IOException {
+        File file = new File(new File(worldDir, "region"), "r." + (x >> 5) + "." + (z >> 5) + ".mca");
+        while (true) {
+            MappedRegionFile region = getRegion(file);
+            if (region == null) {
+                return null;
+            }
+
+            try {
+                return region.getChunkInputStream(x & 31, z & 31);
+            } catch (ClosedByInterruptException e) {
+                throw e;
+            } catch (ClosedChannelException e) {
+                // Closed by clear() while the region had to be mapped again, open it again
+                regions.remove(file, region);
+            }
+        }
+    }
+
+    @Nullable
+    private static MappedRegionFile getRegion(File file) throws IOException {
+        MappedRegionFile region = regions.get(file);
+        if (region != null) {
+            return region;
+        }
+
+        if (!file.exists()) {
+            return null; // Not created yet, don't cache
+        }
+
+        region = new MappedRegionFile(file);
+        MappedRegionFile existing = regions.putIfAbsent(file, region);
+        if (existing != null) {
+            region.close();
+            return existing;
+        }
+        return region;
+    }
+
+    /**
+     * Closes all mapped region files, called together with
+     * {@link net.minecraft.world.chunk.storage.RegionFileCache#clearRegionFileReferences()}.
+     *
+     * <p>Each region is removed before it is closed, so regions opened
+     * concurrently either stay cached or are closed here, but are never
+     * left open without being cached.</p>
+     */
+    public static void clear() {
+        for (File file : regions.keySet()) {
+            MappedRegionFile region = regions.remove(file);
+            if (region == null) {
+                continue; // Removed concurrently
+            }
+
+            try {
+                region.close();
+            } catch (IOException e) {
+                SpongeImpl.getLogger().error("Failed to close mapped region file", e);
+            }
+        }
+    }
+
+}
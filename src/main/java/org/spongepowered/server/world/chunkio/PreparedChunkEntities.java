@@ -0,0 +1,78 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.server.world.chunkio;
+
+import net.minecraft.block.Block;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.util.math.BlockPos;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The entities, tile entities and scheduled block updates of a chunk,
+ * extracted from its NBT data and validated on a chunk I/O thread.
+ *
+ * <p>Only constructing the objects and adding them to the world is left for
+ * the main thread. Tile entities are only extracted, since they are created
+ * through {@link net.minecraft.tileentity.TileEntity#create}, see
+ * {@link AsyncAnvilChunkLoader#loadEntities(net.minecraft.world.World, net.minecraft.world.chunk.Chunk, PreparedChunkEntities)}.</p>
+ */
+public final class PreparedChunkEntities {
+
+    static final PreparedChunkEntities EMPTY = new PreparedChunkEntities(Collections.emptyList(), Collections.emptyList(), Collections.emptyList());
+
+    final List<NBTTagCompound> entities;
+    final List<NBTTagCompound> tileEntities;
+    final List<PreparedTileTick> tileTicks;
+
+    PreparedChunkEntities(List<NBTTagCompound> entities, List<NBTTagCompound> tileEntities, List<PreparedTileTick> tileTicks) {
+        this.entities = entities;
+        this.tileEntities = tileEntities;
+        this.tileTicks = tileTicks;
+    }
+
+    static <T> List<T> newList(int size) {
+        return size == 0 ? Collections.emptyList() : new ArrayList<>(size);
+    }
+
+    static final class PreparedTileTick {
+
+        final BlockPos pos;
+        final Block block;
+        final int delay;
+        final int priority;
+
+        PreparedTileTick(BlockPos pos, Block block, int delay, int priority) {
+            this.pos = pos;
+            this.block = block;
+            this.delay = delay;
+            this.priority = priority;
+        }
+
+    }
+
+}
@@ -0,0 +1,74 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.server.world.chunkio;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * A compression format for the chunk data in region files, identified by
+ * the compression type byte in front of each chunk.
+ *
+ * @see RegionCodecs
+ */
+public interface RegionCodec {
+
+    /**
+     * Returns the compression type written in front of the chunk data.
+     * Types 1 (gzip), 2 (zlib) and 3 (uncompressed) are used by vanilla.
+     *
+     * @return The compression type
+     */
+    int getId();
+
+    /**
+     * Returns the name used to select the codec in the settings.
+     *
+     * @return The name of the codec
+     */
+    String getName();
+
+    /**
+     * Wraps the compressed chunk data.
+     *
+     * @param in The compressed data of a single chunk
+     * @return A stream returning the decompressed data
+     * @throws IOException If the data can't be decompressed
+     */
+    InputStream decompress(InputStream in) throws IOException;
+
+    /**
+     * Wraps the stream the compressed chunk data is written to. The
+     * compressed data must be complete once the returned stream is closed,
+     * which also closes the wrapped stream.
+     *
+     * @param out The stream to write the compressed data to
+     * @return A stream compressing the data written to it
+     * @throws IOException If an error occurs while writing the header
+     */
+    OutputStream compress(OutputStream out) throws IOException;
+
+}
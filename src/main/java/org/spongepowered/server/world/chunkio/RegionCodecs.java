@@ -0,0 +1,255 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.server.world.chunkio;
+
+import net.minecraft.world.chunk.storage.RegionFile;
+import org.spongepowered.common.SpongeImpl;
+import org.spongepowered.server.bridge.world.chunkio.RegionFileBridge_Vanilla;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import javax.annotation.Nullable;
+
+/**
+ * The registry of the {@link RegionCodec}s that can be used in region
+ * files.
+ *
+ * <p>Chunks are always read with the codec selected by their compression
+ * type, so worlds stay readable when the codec for new writes
+ * ({@link ChunkIOSettings#REGION_COMPRESSION}) is changed. Chunks are
+ * converted to the new codec when they are saved the next time.</p>
+ */
+public final class RegionCodecs {
+
+    public static final RegionCodec GZIP = new SimpleCodec(1, "gzip") {
+
+        @Override
+        public InputStream decompress(InputStream in) throws IOException {
+            return new GZIPInputStream(in);
+        }
+
+        @Override
+        public OutputStream compress(OutputStream out) throws IOException {
+            return new GZIPOutputStream(out);
+        }
+
+    };
+
+    public static final RegionCodec ZLIB = new SimpleCodec(2, "zlib") {
+
+        @Override
+        public InputStream decompress(InputStream in) {
+            return new InflaterInputStream(in);
+        }
+
+        @Override
+        public OutputStream compress(OutputStream out) {
+            return new DeflaterOutputStream(out);
+        }
+
+    };
+
+    public static final RegionCodec NONE = new SimpleCodec(3, "none") {
+
+        @Override
+        public InputStream decompress(InputStream in) {
+            return in;
+        }
+
+        @Override
+        public OutputStream compress(OutputStream out) {
+            return out;
+        }
+
+    };
+
+    public static final RegionCodec LZ4 = new Lz4RegionCodec();
+
+    private static final RegionCodec[] byId = new RegionCodec[256];
+    private static final Map<String, RegionCodec> byName = new ConcurrentHashMap<>();
+
+    @Nullable private static volatile RegionCodec writeCodec;
+
+    static {
+        register(GZIP);
+        register(ZLIB);
+        register(NONE);
+        register(LZ4);
+    }
+
+    private RegionCodecs() {
+    }
+
+    /**
+     * Registers an additional codec. Must be called before the worlds using
+     * it are loaded.
+     *
+     * @param codec The codec to register
+     * @throws IllegalArgumentException If the compression type or name is
+     *     already used by another codec
+     */
+    public static synchronized void register(RegionCodec codec) {
+        int id = codec.getId();
+        if (id <= 0 || id > 127) {
+            // 0 marks an empty chunk, the high bit is reserved
+            throw new IllegalArgumentException("Invalid compression type: " + id);
+        }
+        if (byId[id] != null) {
+            throw new IllegalArgumentException("Compression type " + id + " is already used by " + byId[id].getName());
+        }
+
+        String name = codec.getName().toLowerCase(Locale.ENGLISH);
+        if (byName.putIfAbsent(name, codec) != null) {
+            throw new IllegalArgumentException("Duplicate codec name: " + name);
+        }
+        byId[id] = codec;
+    }
+
+    @Nullable
+    public static RegionCodec get(int id) {
+        return id >= 0 && id < byId.length ? byId[id] : null;
+    }
+
+    public static Optional<RegionCodec> get(String name) {
+        return Optional.ofNullable(byName.get(name.toLowerCase(Locale.ENGLISH)));
+    }
+
+    /**
+     * Returns the codec used for new writes, see
+     * {@link ChunkIOSettings#REGION_COMPRESSION}.
+     *
+     * @return The codec for new writes
+     */
+    public static RegionCodec getWriteCodec() {
+        RegionCodec codec = writeCodec;
+        if (codec == null) {
+            // Resolved lazily so codecs registered by plugins can be selected
+            codec = byName.get(ChunkIOSettings.REGION_COMPRESSION.toLowerCase(Locale.ENGLISH));
+            if (codec == null) {
+                SpongeImpl.getLogger().warn("Unknown region compression '{}', using zlib", ChunkIOSettings.REGION_COMPRESSION);
+                codec = ZLIB;
+            }
+            writeCodec = codec;
+        }
+        return codec;
+    }
+
+    /**
+     * Returns a stream with the decompressed data of a chunk.
+     *
+     * @param id The compression type in front of the chunk data
+     * @param in The compressed chunk data
+     * @return The data stream, or null if the compression type is unknown
+     * @throws IOException If an error occurs while reading the header
+     */
+    @Nullable
+    public static DataInputStream decompress(int id, InputStream in) throws IOException {
+        RegionCodec codec = get(id);
+        if (codec == null) {
+            SpongeImpl.getLogger().error("Unknown chunk compression type {}", id);
+            return null;
+        }
+        return new DataInputStream(new BufferedInputStream(codec.decompress(in)));
+    }
+
+    /**
+     * Returns a stream that writes a chunk to the region file with the
+     * codec for new writes once it is closed.
+     *
+     * @param region The region file
+     * @param x The x coordinate of the chunk within the region (0-31)
+     * @param z The z coordinate of the chunk within the region (0-31)
+     * @return The stream to write the chunk data to
+     * @throws IOException If an error occurs while writing the header
+     */
+    public static DataOutputStream compress(RegionFile region, int x, int z) throws IOException {
+        RegionCodec codec = getWriteCodec();
+        return new DataOutputStream(new BufferedOutputStream(codec.compress(new ChunkBuffer(region, x, z, codec.getId()))));
+    }
+
+    /**
+     * The equivalent of the vanilla {@code RegionFile.ChunkBuffer}, which
+     * always writes the zlib compression type.
+     */
+    private static final class ChunkBuffer extends ByteArrayOutputStream {
+
+        private final RegionFile region;
+        private final int x;
+        private final int z;
+        private final int id;
+
+        ChunkBuffer(RegionFile region, int x, int z, int id) {
+            super(8096);
+            this.region = region;
+            this.x = x;
+            this.z = z;
+            this.id = id;
+        }
+
+        @Override
+        public void close() {
+            ((RegionFileBridge_Vanilla) this.region).vanillaBridge$write(this.x, this.z, this.buf, this.count, this.id);
+        }
+
+    }
+
+    private abstract static class SimpleCodec implements RegionCodec {
+
+        private final int id;
+        private final String name;
+
+        SimpleCodec(int id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        @Override
+        public int getId() {
+            return this.id;
+        }
+
+        @Override
+        public String getName() {
+            return this.name;
+        }
+
+    }
+
+}
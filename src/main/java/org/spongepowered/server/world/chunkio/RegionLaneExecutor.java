@@ -0,0 +1,333 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.server.world.chunkio;
+
+import net.minecraft.world.chunk.storage.RegionFile;
+import net.minecraft.world.chunk.storage.RegionFileCache;
+import org.spongepowered.common.SpongeImpl;
+import org.spongepowered.server.mixin.chunkio.RegionFileAccessor_ChunkIO;
+import org.spongepowered.server.mixin.chunkio.RegionFileCacheAccessor_ChunkIO;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+
+/**
+ * Runs chunk reads on a fixed number of lanes, each with a single thread.
+ * All reads from a region file are dispatched to the same lane, so region
+ * files aren't accessed by multiple threads at the same time, while
+ * different regions can still be read in parallel.
+ *
+ * <p>A lane reads one region at a time: all reads queued for the region are
+ * taken as a batch and sorted by the position of the chunks in the region
+ * file, so the disk is read mostly sequentially. Regions are served in the
+ * order they were queued, but regions with regular loads are preferred
+ * over regions with only {@link RegionTask#isDeferred() deferred} loads.</p>
+ */
+public final class RegionLaneExecutor {
+
+    /**
+     * A read of a chunk that can be dispatched by region.
+     */
+    public interface RegionTask extends Runnable {
+
+        /**
+         * Returns the directory containing the region directory of the
+         * chunk.
+         */
+        File getSaveLocation();
+
+        int getChunkX();
+
+        int getChunkZ();
+
+        /**
+         * Returns whether the task should only run once no other regions
+         * have tasks waiting.
+         */
+        boolean isDeferred();
+
+    }
+
+    private final Lane[] lanes;
+
+    public RegionLaneExecutor(int lanes) {
+        this.lanes = new Lane[lanes];
+        for (int i = 0; i < lanes; i++) {
+            this.lanes[i] = new Lane(i + 1);
+        }
+    }
+
+    public void execute(RegionTask task) {
+        getLane(task).add(task);
+    }
+
+    /**
+     * Removes a task that has not been started yet.
+     *
+     * @param task The task to remove
+     * @return True if the task was removed and won't run
+     */
+    public boolean remove(RegionTask task) {
+        return getLane(task).remove(task);
+    }
+
+    public int getLaneCount() {
+        return this.lanes.length;
+    }
+
+    /**
+     * Returns the number of lanes currently running a task.
+     */
+    public int getActiveCount() {
+        int count = 0;
+        for (Lane lane : this.lanes) {
+            if (lane.active) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of tasks waiting to be run.
+     */
+    public int getQueueSize() {
+        int size = 0;
+        for (Lane lane : this.lanes) {
+            size += lane.size();
+        }
+        return size;
+    }
+
+    private Lane getLane(RegionTask task) {
+        int hash = RegionKey.hash(task.getSaveLocation(), task.getChunkX() >> 5, task.getChunkZ() >> 5);
+        return this.lanes[Math.floorMod(hash, this.lanes.length)];
+    }
+
+    private static final class RegionKey {
+
+        final File saveLocation;
+        final int x;
+        final int z;
+
+        RegionKey(RegionTask task) {
+            this.saveLocation = task.getSaveLocation();
+            this.x = task.getChunkX() >> 5;
+            this.z = task.getChunkZ() >> 5;
+        }
+
+        static int hash(File saveLocation, int x, int z) {
+            int hash = (saveLocation.hashCode() * 31 + x) * 31 + z;
+            return hash ^ (hash >>> 16);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof RegionKey)) {
+                return false;
+            }
+            RegionKey that = (RegionKey) o;
+            return this.x == that.x && this.z == that.z && Objects.equals(this.saveLocation, that.saveLocation);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash(this.saveLocation, this.x, this.z);
+        }
+
+    }
+
+    private static final class Lane implements Runnable {
+
+        // Guarded by this
+        private final Map<RegionKey, List<RegionTask>> regions = new LinkedHashMap<>();
+        private final Deque<RegionTask> batch = new ArrayDeque<>();
+        private int size;
+
+        volatile boolean active;
+
+        Lane(int id) {
+            Thread thread = new Thread(this, "Chunk I/O Lane #" + id);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        synchronized void add(RegionTask task) {
+            this.regions.computeIfAbsent(new RegionKey(task), key -> new ArrayList<>()).add(task);
+            this.size++;
+            this.notify();
+        }
+
+        synchronized boolean remove(RegionTask task) {
+            boolean removed;
+            RegionKey key = new RegionKey(task);
+            List<RegionTask> tasks = this.regions.get(key);
+            if (tasks != null && tasks.remove(task)) {
+                if (tasks.isEmpty()) {
+                    this.regions.remove(key);
+                }
+                removed = true;
+            } else {
+                removed = this.batch.remove(task);
+            }
+
+            if (removed) {
+                this.size--;
+            }
+            return removed;
+        }
+
+        synchronized int size() {
+            return this.size;
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                RegionTask task;
+                try {
+                    task = take();
+                } catch (InterruptedException e) {
+                    return;
+                }
+
+                this.active = true;
+                try {
+                    task.run();
+                } catch (Throwable t) {
+                    SpongeImpl.getLogger().error("Failed to run chunk I/O task", t);
+                } finally {
+                    this.active = false;
+                }
+            }
+        }
+
+        // The batch is sorted outside of the lock, so queueing and removing tasks never waits for the region file
+        private RegionTask take() throws InterruptedException {
+            RegionTask task = pollBatch();
+            while (task == null) {
+                List<RegionTask> tasks = copyNextRegion();
+                RegionKey key = new RegionKey(tasks.get(0));
+                if (tasks.size() > 1) {
+                    int[] offsets = getOpenRegionOffsets(key);
+
+                    // Without an open region file, the chunk index is usually close to the order in the file
+                    tasks.sort(Comparator.comparingInt((RegionTask t) -> {
+                        int index = (t.getChunkX() & 31) + (t.getChunkZ() & 31) * 32;
+                        return offsets != null ? offsets[index] >>> 8 : index;
+                    }).thenComparing(RegionTask::isDeferred));
+                }
+                task = startBatch(key, tasks);
+            }
+            return task;
+        }
+
+        @Nullable
+        private synchronized RegionTask pollBatch() {
+            RegionTask task = this.batch.poll();
+            if (task != null) {
+                this.size--;
+            }
+            return task;
+        }
+
+        /**
+         * Waits for a region with queued tasks and copies them. The tasks
+         * stay queued (and removable) until the batch is started.
+         */
+        private synchronized List<RegionTask> copyNextRegion() throws InterruptedException {
+            while (this.regions.isEmpty()) {
+                this.wait();
+            }
+
+            for (List<RegionTask> tasks : this.regions.values()) {
+                for (RegionTask task : tasks) {
+                    if (!task.isDeferred()) {
+                        return new ArrayList<>(tasks);
+                    }
+                }
+            }
+
+            // Only deferred tasks are queued
+            return new ArrayList<>(this.regions.values().iterator().next());
+        }
+
+        // Returns null if all tasks of the region were removed while sorting
+        @Nullable
+        private synchronized RegionTask startBatch(RegionKey key, List<RegionTask> sorted) {
+            List<RegionTask> tasks = this.regions.remove(key);
+            if (tasks == null) {
+                return null;
+            }
+
+            Set<RegionTask> queued = new LinkedHashSet<>(tasks);
+            for (RegionTask task : sorted) {
+                if (queued.remove(task)) {
+                    this.batch.add(task);
+                }
+            }
+            // Tasks queued while sorting
+            this.batch.addAll(queued);
+            return pollBatch();
+        }
+
+        /**
+         * Copies the chunk offsets of the region, but only if the region file
+         * is already open. Opening it just for sorting would create files for
+         * regions without any chunks.
+         */
+        @Nullable
+        private static int[] getOpenRegionOffsets(RegionKey key) {
+            File file = new File(new File(key.saveLocation, "region"), "r." + key.x + "." + key.z + ".mca");
+            RegionFile region;
+            synchronized (RegionFileCache.class) { // Guards the cache in createOrLoadRegionFile
+                region = RegionFileCacheAccessor_ChunkIO.chunkIOAccessor$getRegionsByFile().get(file);
+            }
+            if (region == null) {
+                return null;
+            }
+
+            synchronized (region) { // The offsets are changed by the synchronized writes
+                return ((RegionFileAccessor_ChunkIO) region).chunkIOAccessor$getOffsets().clone();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,201 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.server.launch;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.spongepowered.server.world.chunkio.RegionCodec;
+import org.spongepowered.server.world.chunkio.RegionCodecs;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+public class RegionCompactorTest {
+
+    private static final int SECTOR_BYTES = 4096;
+
+    // Index of the chunk in the region (x + z * 32)
+    private static final int FIRST = 0; // (0, 0)
+    private static final int SECOND = 1; // (1, 0)
+    private static final int THIRD = 32; // (0, 1)
+    private static final int INVALID = 2; // (2, 0)
+
+    @Rule public final TemporaryFolder folder = new TemporaryFolder();
+
+    private Path dir;
+    private Path file;
+    private final byte[][] chunks = new byte[1024][];
+
+    @Before
+    public void createRegion() throws IOException {
+        this.dir = this.folder.getRoot().toPath();
+        Path regionDir = this.dir.resolve("world").resolve("region");
+        Files.createDirectories(regionDir);
+        this.file = regionDir.resolve("r.0.0.mca");
+
+        Random random = new Random(0);
+        this.chunks[FIRST] = createChunkData(random, 1000);
+        this.chunks[SECOND] = createChunkData(random, 20_000);
+        this.chunks[THIRD] = createChunkData(random, 50_000); // Larger than a sector even when compressed
+
+        // Chunks that outgrew their sectors, leaving gaps in between
+        ByteBuffer region = ByteBuffer.allocate(40 * SECTOR_BYTES);
+        writeChunk(region, THIRD, 3, RegionCodecs.ZLIB, this.chunks[THIRD]);
+        writeChunk(region, FIRST, 20, RegionCodecs.ZLIB, this.chunks[FIRST]);
+        writeChunk(region, SECOND, 30, RegionCodecs.GZIP, this.chunks[SECOND]);
+        region.putInt(INVALID * 4, 100 << 8 | 1); // Beyond the end of the file
+        for (int i = 0; i < 1024; i++) {
+            region.putInt(SECTOR_BYTES + i * 4, 1_500_000_000 + i);
+        }
+        Files.write(this.file, region.array());
+    }
+
+    @Test
+    public void compact() throws IOException {
+        assertTrue(new RegionCompactor(null, false).run(this.dir, 1));
+
+        ByteBuffer region = ByteBuffer.wrap(Files.readAllBytes(this.file));
+        assertEquals(0, region.capacity() % SECTOR_BYTES);
+
+        // Packed in Z-order directly after the header
+        int first = region.getInt(FIRST * 4);
+        int second = region.getInt(SECOND * 4);
+        int third = region.getInt(THIRD * 4);
+        assertEquals(2, first >>> 8);
+        assertEquals((first >>> 8) + (first & 0xFF), second >>> 8);
+        assertEquals((second >>> 8) + (second & 0xFF), third >>> 8);
+        assertEquals((third >>> 8) + (third & 0xFF), region.capacity() / SECTOR_BYTES);
+
+        assertEquals(0, region.getInt(INVALID * 4));
+
+        assertChunks(region);
+        assertEquals(RegionCodecs.ZLIB.getId(), getCompression(region, FIRST));
+        assertEquals(RegionCodecs.GZIP.getId(), getCompression(region, SECOND));
+    }
+
+    @Test
+    public void convertCodec() throws IOException {
+        assertTrue(new RegionCompactor(RegionCodecs.LZ4, false).run(this.dir, 1));
+
+        ByteBuffer region = ByteBuffer.wrap(Files.readAllBytes(this.file));
+        assertChunks(region);
+        for (int index : new int[] {FIRST, SECOND, THIRD}) {
+            assertEquals(RegionCodecs.LZ4.getId(), getCompression(region, index));
+        }
+    }
+
+    @Test
+    public void compactedRegionIsUnchanged() throws IOException {
+        assertTrue(new RegionCompactor(null, false).run(this.dir, 1));
+        byte[] compacted = Files.readAllBytes(this.file);
+
+        assertTrue(new RegionCompactor(null, false).run(this.dir, 1));
+        assertArrayEquals(compacted, Files.readAllBytes(this.file));
+    }
+
+    @Test
+    public void dryRun() throws IOException {
+        byte[] before = Files.readAllBytes(this.file);
+        assertTrue(new RegionCompactor(RegionCodecs.LZ4, true).run(this.dir, 1));
+        assertArrayEquals(before, Files.readAllBytes(this.file));
+    }
+
+    // Checks that all valid chunks are stored with their data and timestamps
+    private void assertChunks(ByteBuffer region) throws IOException {
+        for (int i = 0; i < 1024; i++) {
+            if (this.chunks[i] != null) {
+                assertArrayEquals("Data of chunk " + i, this.chunks[i], readChunk(region, i));
+                assertEquals(1_500_000_000 + i, region.getInt(SECTOR_BYTES + i * 4));
+            } else {
+                assertEquals("Offset of chunk " + i, 0, region.getInt(i * 4));
+            }
+        }
+    }
+
+    // Block ids with some noise, compresses similar to chunk data
+    private static byte[] createChunkData(Random random, int length) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (random.nextInt(10) == 0 ? random.nextInt() : i / 256);
+        }
+        return data;
+    }
+
+    private static void writeChunk(ByteBuffer region, int index, int sector, RegionCodec codec, byte[] data) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream out = codec.compress(compressed)) {
+            out.write(data);
+        }
+
+        int length = compressed.size() + 1;
+        int sectors = (length + 4 + SECTOR_BYTES - 1) / SECTOR_BYTES;
+        region.putInt(index * 4, sector << 8 | sectors);
+
+        region.position(sector * SECTOR_BYTES);
+        region.putInt(length);
+        region.put((byte) codec.getId());
+        region.put(compressed.toByteArray());
+        region.clear();
+    }
+
+    private static int getCompression(ByteBuffer region, int index) {
+        int offset = region.getInt(index * 4);
+        return region.get((offset >>> 8) * SECTOR_BYTES + 4);
+    }
+
+    private static byte[] readChunk(ByteBuffer region, int index) throws IOException {
+        int offset = region.getInt(index * 4);
+        int start = (offset >>> 8) * SECTOR_BYTES;
+        int length = region.getInt(start);
+        assertTrue("Chunk " + index + " exceeds its sectors", length + 4 <= (offset & 0xFF) * SECTOR_BYTES);
+
+        RegionCodec codec = RegionCodecs.get(region.get(start + 4));
+        byte[] compressed = Arrays.copyOfRange(region.array(), start + 5, start + 4 + length);
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        try (InputStream in = codec.decompress(new ByteArrayInputStream(compressed))) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                data.write(buffer, 0, read);
+            }
+        }
+        return data.toByteArray();
+    }
+
+}
@@ -0,0 +1,162 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.server.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void empty() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMean());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getPercentile(0.5));
+        assertEquals(0, histogram.getPercentile(1));
+    }
+
+    @Test
+    public void smallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 16; i++) {
+            histogram.record(i);
+        }
+
+        for (int i = 0; i < 16; i++) {
+            assertEquals(i, histogram.getPercentile((i + 1) / 16.0));
+        }
+    }
+
+    @Test
+    public void negativeValuesAreCountedAsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        assertEquals(1, histogram.getCount());
+        assertEquals(0, histogram.getTotal());
+        assertEquals(0, histogram.getPercentile(1));
+    }
+
+    @Test
+    public void statistics() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(100);
+        histogram.record(200);
+        histogram.record(600);
+
+        assertEquals(3, histogram.getCount());
+        assertEquals(900, histogram.getTotal());
+        assertEquals(300, histogram.getMean());
+        assertEquals(600, histogram.getMax());
+    }
+
+    @Test
+    public void percentileIsUpperBoundOfBucket() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1000); // Bucket [960, 1023]
+        histogram.record(5000);
+
+        assertEquals(1023, histogram.getPercentile(0.5));
+        assertEquals(5000, histogram.getPercentile(1)); // Limited to the maximum
+    }
+
+    @Test
+    public void bucketsHaveBoundedRelativeError() {
+        Random random = new Random(0);
+        for (int i = 0; i < 10_000; i++) {
+            long value = random.nextLong() >>> (1 + random.nextInt(63)); // Positive values of any magnitude
+
+            LatencyHistogram histogram = new LatencyHistogram();
+            histogram.record(value);
+            histogram.record(Long.MAX_VALUE); // Keeps the maximum from limiting the percentile
+
+            long upper = histogram.getPercentile(0.5);
+            assertTrue("Upper bound " + upper + " below " + value, upper >= value);
+            assertTrue("Upper bound " + upper + " too far above " + value, upper - value <= value / 8);
+        }
+    }
+
+    @Test
+    public void percentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 10_000; i++) {
+            histogram.record(i);
+        }
+
+        assertWithin(5000, histogram.getPercentile(0.5));
+        assertWithin(9000, histogram.getPercentile(0.9));
+        assertWithin(9900, histogram.getPercentile(0.99));
+        assertEquals(10_000, histogram.getPercentile(1));
+        assertEquals(1, histogram.getPercentile(0));
+    }
+
+    @Test
+    public void largestValue() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, histogram.getPercentile(0.5));
+    }
+
+    @Test
+    public void addTo() {
+        LatencyHistogram first = new LatencyHistogram();
+        first.record(10);
+        first.record(1000);
+        LatencyHistogram second = new LatencyHistogram();
+        second.record(7);
+
+        first.addTo(second);
+        assertEquals(3, second.getCount());
+        assertEquals(1017, second.getTotal());
+        assertEquals(1000, second.getMax());
+        assertEquals(10, second.getPercentile(2 / 3.0));
+        assertEquals(2, first.getCount()); // Unchanged
+    }
+
+    @Test
+    public void reset() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1000);
+        histogram.reset();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getPercentile(1));
+
+        histogram.record(5);
+        assertEquals(5, histogram.getPercentile(1));
+    }
+
+    // The buckets have a relative error of at most 12.5%
+    private static void assertWithin(long expected, long actual) {
+        assertTrue("Expected about " + expected + ", got " + actual, actual >= expected && actual - expected <= expected / 8);
+    }
+
+}
@@ -0,0 +1,133 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.server.util;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class SlidingLatencyHistogramTest {
+
+    private static final long SLOT = 1000;
+    private static final int SLOTS = 4;
+
+    private long time;
+    private final SlidingLatencyHistogram histogram = new SlidingLatencyHistogram(SLOT, SLOTS, () -> this.time);
+
+    @Test
+    public void currentSlot() {
+        this.histogram.record(10);
+        this.histogram.record(20);
+
+        LatencyHistogram window = this.histogram.getWindow(0);
+        assertEquals(2, window.getCount());
+        assertEquals(30, window.getTotal());
+    }
+
+    @Test
+    public void windowIsRoundedToSlots() {
+        this.histogram.record(1);
+        this.time += SLOT;
+        this.histogram.record(2);
+        this.time += SLOT;
+        this.histogram.record(4);
+
+        assertEquals(4, this.histogram.getWindow(0).getTotal());
+        assertEquals(4, this.histogram.getWindow(SLOT - 1).getTotal());
+        assertEquals(6, this.histogram.getWindow(SLOT).getTotal());
+        assertEquals(7, this.histogram.getWindow(2 * SLOT).getTotal());
+    }
+
+    @Test
+    public void windowIsLimitedToSlots() {
+        this.histogram.record(1);
+        this.time += (SLOTS - 1) * SLOT;
+        this.histogram.record(2);
+
+        // The oldest slot is still stored, but the longest window is one slot shorter
+        assertEquals(3, this.histogram.getWindow(Long.MAX_VALUE).getTotal());
+        this.time += SLOT - 1;
+        assertEquals(3, this.histogram.getWindow(Long.MAX_VALUE).getTotal());
+    }
+
+    @Test
+    public void oldSlotsExpire() {
+        this.histogram.record(1);
+        this.time += SLOTS * SLOT; // Nothing recorded since, so the slot wasn't reused yet
+
+        assertEquals(0, this.histogram.getWindow(Long.MAX_VALUE).getCount());
+    }
+
+    @Test
+    public void slotsAreClearedWhenReused() {
+        this.histogram.record(1);
+        this.time += SLOTS * SLOT; // Same slot again
+        this.histogram.record(2);
+
+        LatencyHistogram window = this.histogram.getWindow(0);
+        assertEquals(1, window.getCount());
+        assertEquals(2, window.getTotal());
+    }
+
+    @Test
+    public void rotation() {
+        for (int i = 0; i < 3 * SLOTS; i++) {
+            this.histogram.record(i);
+            this.histogram.record(i);
+
+            LatencyHistogram window = this.histogram.getWindow(Long.MAX_VALUE);
+            int slots = Math.min(i + 1, SLOTS);
+            assertEquals(2 * slots, window.getCount());
+            assertEquals(i, window.getMax());
+
+            this.time += SLOT;
+        }
+    }
+
+    @Test
+    public void negativeTime() {
+        this.time = -SLOT / 2;
+        this.histogram.record(1);
+        this.time += SLOT;
+        this.histogram.record(2);
+
+        assertEquals(2, this.histogram.getWindow(0).getTotal());
+        assertEquals(3, this.histogram.getWindow(SLOT).getTotal());
+    }
+
+    @Test
+    public void reset() {
+        this.histogram.record(1);
+        this.time += SLOT;
+        this.histogram.record(2);
+        this.histogram.reset();
+
+        assertEquals(0, this.histogram.getWindow(Long.MAX_VALUE).getCount());
+
+        this.histogram.record(3);
+        assertEquals(3, this.histogram.getWindow(Long.MAX_VALUE).getTotal());
+    }
+
+}
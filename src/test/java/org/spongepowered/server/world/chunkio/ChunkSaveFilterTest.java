@@ -0,0 +1,178 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.server.world.chunkio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.nbt.NBTTagList;
+import net.minecraft.util.math.ChunkPos;
+import org.junit.Test;
+
+public class ChunkSaveFilterTest {
+
+    private static final ChunkPos POS = new ChunkPos(3, -4);
+
+    private final ChunkSaveFilter filter = new ChunkSaveFilter(16);
+
+    @Test
+    public void disabled() {
+        ChunkSaveFilter filter = new ChunkSaveFilter(0);
+        assertFalse(filter.isEnabled());
+
+        NBTTagCompound chunk = createChunk(100);
+        filter.written(POS, chunk);
+        assertFalse(filter.isUnchanged(POS, chunk));
+    }
+
+    @Test
+    public void firstSaveIsWritten() {
+        assertFalse(this.filter.isUnchanged(POS, createChunk(100)));
+    }
+
+    @Test
+    public void unchangedSaveIsSkipped() {
+        this.filter.written(POS, createChunk(100));
+        assertTrue(this.filter.isUnchanged(POS, createChunk(100)));
+        assertTrue(this.filter.isUnchanged(POS, createChunk(100)));
+    }
+
+    @Test
+    public void lastUpdateIsIgnored() {
+        this.filter.written(POS, createChunk(100));
+
+        NBTTagCompound chunk = createChunk(200);
+        assertTrue(this.filter.isUnchanged(POS, chunk));
+        assertEquals(200, chunk.getCompoundTag("Level").getLong("LastUpdate")); // Not modified by the filter
+    }
+
+    @Test
+    public void changedLevelIsWritten() {
+        this.filter.written(POS, createChunk(100));
+
+        NBTTagCompound chunk = createChunk(100);
+        chunk.getCompoundTag("Level").setLong("InhabitedTime", 1);
+        assertFalse(this.filter.isUnchanged(POS, chunk));
+    }
+
+    @Test
+    public void changedBlockIsWritten() {
+        this.filter.written(POS, createChunk(100));
+
+        NBTTagCompound chunk = createChunk(100);
+        NBTTagCompound section = chunk.getCompoundTag("Level").getTagList("Sections", 10).getCompoundTagAt(0);
+        section.getByteArray("Blocks")[1234] = 5;
+        assertFalse(this.filter.isUnchanged(POS, chunk));
+    }
+
+    @Test
+    public void changedRootIsWritten() {
+        this.filter.written(POS, createChunk(100));
+
+        NBTTagCompound chunk = createChunk(100);
+        chunk.setInteger("DataVersion", 1344);
+        assertFalse(this.filter.isUnchanged(POS, chunk));
+    }
+
+    @Test
+    public void changedSaveForgetsOldData() {
+        this.filter.written(POS, createChunk(100));
+
+        NBTTagCompound changed = createChunk(100);
+        changed.getCompoundTag("Level").setLong("InhabitedTime", 1);
+        assertFalse(this.filter.isUnchanged(POS, changed));
+
+        // The changed data may have been written partially, so the old data must be written again
+        assertFalse(this.filter.isUnchanged(POS, createChunk(100)));
+    }
+
+    @Test
+    public void positionsAreSeparate() {
+        this.filter.written(POS, createChunk(100));
+        assertFalse(this.filter.isUnchanged(new ChunkPos(POS.x + 1, POS.z), createChunk(100)));
+        assertTrue(this.filter.isUnchanged(POS, createChunk(100)));
+    }
+
+    @Test
+    public void invalidate() {
+        this.filter.written(POS, createChunk(100));
+        this.filter.invalidate(POS);
+        assertFalse(this.filter.isUnchanged(POS, createChunk(100)));
+    }
+
+    @Test
+    public void clear() {
+        this.filter.written(POS, createChunk(100));
+        this.filter.clear();
+        assertFalse(this.filter.isUnchanged(POS, createChunk(100)));
+    }
+
+    @Test
+    public void leastRecentlyWrittenIsForgotten() {
+        ChunkSaveFilter filter = new ChunkSaveFilter(2);
+        ChunkPos first = new ChunkPos(0, 0);
+        ChunkPos second = new ChunkPos(1, 0);
+        ChunkPos third = new ChunkPos(2, 0);
+
+        filter.written(first, createChunk(100));
+        filter.written(second, createChunk(100));
+        filter.written(first, createChunk(100)); // Now more recent than the second chunk
+        filter.written(third, createChunk(100));
+
+        assertTrue(filter.isUnchanged(first, createChunk(100)));
+        assertFalse(filter.isUnchanged(second, createChunk(100)));
+        assertTrue(filter.isUnchanged(third, createChunk(100)));
+    }
+
+    private static NBTTagCompound createChunk(long lastUpdate) {
+        byte[] blocks = new byte[4096];
+        for (int i = 0; i < blocks.length; i++) {
+            blocks[i] = (byte) (i % 7);
+        }
+
+        NBTTagCompound section = new NBTTagCompound();
+        section.setByte("Y", (byte) 0);
+        section.setByteArray("Blocks", blocks);
+        section.setByteArray("Data", new byte[2048]);
+        NBTTagList sections = new NBTTagList();
+        sections.appendTag(section);
+
+        NBTTagCompound level = new NBTTagCompound();
+        level.setInteger("xPos", POS.x);
+        level.setInteger("zPos", POS.z);
+        level.setLong("LastUpdate", lastUpdate);
+        level.setLong("InhabitedTime", 0);
+        level.setTag("Sections", sections);
+        level.setTag("Entities", new NBTTagList());
+
+        NBTTagCompound chunk = new NBTTagCompound();
+        chunk.setInteger("DataVersion", 1343);
+        chunk.setTag("Level", level);
+        return chunk;
+    }
+
+}
@@ -0,0 +1,295 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.server.world.chunkio;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import net.minecraft.nbt.CompressedStreamTools;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.nbt.NBTTagList;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+public class Lz4RegionCodecTest {
+
+    private final Lz4RegionCodec codec = new Lz4RegionCodec();
+
+    @Test
+    public void emptyInput() throws IOException {
+        assertRoundTrip(new byte[0]);
+    }
+
+    @Test
+    public void inputShorterThanMatchLimit() throws IOException {
+        for (int length = 1; length <= 13; length++) {
+            byte[] data = new byte[length]; // All zeros, but too short for a match
+            assertRoundTrip(data);
+        }
+    }
+
+    @Test
+    public void longLiteralRuns() throws IOException {
+        Random random = new Random(0);
+        for (int length : new int[] {15, 16, 269, 270, 271, 1000}) {
+            byte[] data = new byte[length];
+            random.nextBytes(data);
+            assertRoundTrip(data);
+        }
+    }
+
+    @Test
+    public void longMatches() throws IOException {
+        byte[] data = new byte[100_000];
+        Arrays.fill(data, 20, data.length - 20, (byte) 7);
+
+        byte[] compressed = assertRoundTrip(data);
+        assertTrue("Long match wasn't compressed", compressed.length < data.length / 100);
+    }
+
+    @Test
+    public void overlappingMatches() throws IOException {
+        byte[] data = new byte[5000];
+        byte[] pattern = {1, 2, 3};
+        for (int i = 0; i < data.length; i++) {
+            data[i] = pattern[i % pattern.length]; // Matches at offset 3 are much longer than the offset
+        }
+
+        byte[] compressed = assertRoundTrip(data);
+        assertTrue("Repeated pattern wasn't compressed", compressed.length < data.length / 10);
+    }
+
+    @Test
+    public void matchesBeyondMaxDistance() throws IOException {
+        byte[] data = new byte[140_000];
+        Random random = new Random(1);
+        random.nextBytes(data);
+        System.arraycopy(data, 0, data, 70_000, 70_000); // Repeats, but too far away to reference
+        assertRoundTrip(data);
+    }
+
+    @Test
+    public void incompressibleData() throws IOException {
+        byte[] data = new byte[65536];
+        new Random(2).nextBytes(data);
+
+        byte[] compressed = assertRoundTrip(data);
+        assertTrue(compressed.length - 4 <= Lz4RegionCodec.maxCompressedLength(data.length));
+    }
+
+    @Test
+    public void chunkNbt() throws IOException {
+        NBTTagCompound chunk = createChunk();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            CompressedStreamTools.write(chunk, out);
+        }
+
+        byte[] data = bytes.toByteArray();
+        byte[] compressed = assertRoundTrip(data);
+        assertTrue("Chunk wasn't compressed", compressed.length < data.length / 2);
+
+        NBTTagCompound read;
+        try (DataInputStream in = new DataInputStream(this.codec.decompress(new ByteArrayInputStream(compressed)))) {
+            read = CompressedStreamTools.read(in);
+        }
+        assertEquals(chunk, read);
+    }
+
+    @Test
+    public void decompressesLazily() throws IOException {
+        byte[] data = new byte[1000];
+        byte[] compressed = compress(data);
+
+        ByteArrayInputStream in = new ByteArrayInputStream(compressed);
+        InputStream decompressed = this.codec.decompress(in);
+        assertEquals("Data was read before the stream was used", compressed.length, in.available());
+
+        assertArrayEquals(data, readFully(decompressed));
+        assertEquals(0, in.available());
+    }
+
+    @Test
+    public void rejectsInvalidOffsets() {
+        // One literal followed by a match with offset 0
+        assertMalformed(new byte[] {0x10, 'a', 0, 0}, 5);
+        // One literal followed by a match starting before the output
+        assertMalformed(new byte[] {0x10, 'a', 2, 0}, 5);
+    }
+
+    @Test
+    public void rejectsOutOfBoundsLiterals() {
+        // Claims 5 literals, but only contains 2
+        assertMalformed(new byte[] {0x50, 'a', 'b'}, 5);
+        // Claims more literals than the output can hold
+        assertMalformed(new byte[] {0x20, 'a', 'b'}, 1);
+    }
+
+    @Test
+    public void rejectsOutOfBoundsMatches() {
+        // One literal followed by a match of 4 bytes, but only 3 bytes fit
+        assertMalformed(new byte[] {0x10, 'a', 1, 0, 0x00, 'b'}, 4);
+    }
+
+    @Test
+    public void rejectsTruncatedBlocks() throws IOException {
+        byte[] data = new byte[1000];
+        Arrays.fill(data, 500, 1000, (byte) 1);
+        byte[] block = new byte[Lz4RegionCodec.maxCompressedLength(data.length)];
+        int length = Lz4RegionCodec.compress(data, data.length, block);
+
+        for (int truncated = 0; truncated < length; truncated++) {
+            assertMalformed(Arrays.copyOf(block, truncated), data.length);
+        }
+    }
+
+    @Test
+    public void rejectsWrongLength() throws IOException {
+        byte[] data = new byte[100];
+        byte[] block = new byte[Lz4RegionCodec.maxCompressedLength(data.length)];
+        int length = Lz4RegionCodec.compress(data, data.length, block);
+
+        assertMalformed(Arrays.copyOf(block, length), data.length + 1);
+        assertMalformed(Arrays.copyOf(block, length), data.length - 1);
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsNegativeLength() throws IOException {
+        byte[] compressed = {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x00};
+        readFully(this.codec.decompress(new ByteArrayInputStream(compressed)));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsHugeLength() throws IOException {
+        byte[] compressed = {(byte) 0x7F, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x00};
+        readFully(this.codec.decompress(new ByteArrayInputStream(compressed)));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsLengthAboveMaxRatio() throws IOException {
+        // 1 MiB can't be encoded in 8 bytes
+        byte[] compressed = {0x00, 0x10, 0x00, 0x00, (byte) 0xF0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0, 0, 0, 0};
+        readFully(this.codec.decompress(new ByteArrayInputStream(compressed)));
+    }
+
+    private byte[] assertRoundTrip(byte[] data) throws IOException {
+        byte[] compressed = compress(data);
+        assertArrayEquals(data, readFully(this.codec.decompress(new ByteArrayInputStream(compressed))));
+        return compressed;
+    }
+
+    private byte[] compress(byte[] data) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream out = this.codec.compress(compressed)) {
+            out.write(data);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static void assertMalformed(byte[] block, int length) {
+        try {
+            Lz4RegionCodec.decompress(block, block.length, new byte[length]);
+            fail("Malformed block was accepted: " + Arrays.toString(block));
+        } catch (IOException expected) {
+        }
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    // Mostly stone with some ores and air on top, similar to a generated chunk
+    private static NBTTagCompound createChunk() {
+        Random random = new Random(3);
+
+        NBTTagList sections = new NBTTagList();
+        for (int y = 0; y < 5; y++) {
+            byte[] blocks = new byte[4096];
+            for (int i = 0; i < blocks.length; i++) {
+                int height = y * 16 + (i >> 8);
+                if (height < 64) {
+                    blocks[i] = (byte) (random.nextInt(50) == 0 ? 14 + random.nextInt(3) : 1);
+                } else if (height == 64) {
+                    blocks[i] = 2;
+                }
+            }
+
+            byte[] skyLight = new byte[2048];
+            if (y == 4) {
+                Arrays.fill(skyLight, (byte) 0xFF);
+            }
+
+            NBTTagCompound section = new NBTTagCompound();
+            section.setByte("Y", (byte) y);
+            section.setByteArray("Blocks", blocks);
+            section.setByteArray("Data", new byte[2048]);
+            section.setByteArray("BlockLight", new byte[2048]);
+            section.setByteArray("SkyLight", skyLight);
+            sections.appendTag(section);
+        }
+
+        int[] heightMap = new int[256];
+        Arrays.fill(heightMap, 65);
+        byte[] biomes = new byte[256];
+        Arrays.fill(biomes, (byte) 1);
+
+        NBTTagCompound level = new NBTTagCompound();
+        level.setInteger("xPos", 12);
+        level.setInteger("zPos", -7);
+        level.setLong("LastUpdate", 123456L);
+        level.setLong("InhabitedTime", 4000L);
+        level.setBoolean("TerrainPopulated", true);
+        level.setBoolean("LightPopulated", true);
+        level.setTag("Sections", sections);
+        level.setIntArray("HeightMap", heightMap);
+        level.setByteArray("Biomes", biomes);
+        level.setTag("Entities", new NBTTagList());
+        level.setTag("TileEntities", new NBTTagList());
+
+        NBTTagCompound chunk = new NBTTagCompound();
+        chunk.setInteger("DataVersion", 1343);
+        chunk.setTag("Level", level);
+        return chunk;
+    }
+
+}